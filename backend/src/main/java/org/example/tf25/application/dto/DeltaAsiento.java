@@ -0,0 +1,23 @@
+package org.example.tf25.application.dto;
+
+/**
+ * Cambio de estado de un asiento publicado en {@code tf25:asientos:{eventId}}.
+ * En el canal viaja como texto {@code seq|asientoId|ESTADO}; {@code seq} es creciente por evento.
+ */
+public record DeltaAsiento(
+        long seq,
+        String asientoId,
+        String estado
+) {
+    /** @return el delta, o null si el mensaje no tiene el formato esperado */
+    public static DeltaAsiento parse(String mensaje) {
+        if (mensaje == null) return null;
+        String[] partes = mensaje.split("\\|", 3);
+        if (partes.length != 3) return null;
+        try {
+            return new DeltaAsiento(Long.parseLong(partes[0]), partes[1], partes[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
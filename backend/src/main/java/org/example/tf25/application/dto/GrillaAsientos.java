@@ -0,0 +1,132 @@
+package org.example.tf25.application.dto;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mapa de asientos compacto: el estado de cada asiento ocupa 2 bits en un arreglo empaquetado
+ * de tamaño filas × columnas (4 asientos por byte).
+ * <p>
+ * Formato binario ({@value #MEDIA_TYPE}):
+ * <pre>
+ * version(1) | filas(uint16) | columnas(uint16) | estados(ceil(filas*columnas/4) bytes)
+ * </pre>
+ * Los asientos van en orden fila-mayor (fila 1 columna 1, fila 1 columna 2, ...), 4 por byte
+ * empezando por los bits menos significativos. Códigos: 0 = libre, 1 = bloqueado, 2 = vendido.
+ * Para 5.000 asientos son ~1,2 KB contra decenas de KB del JSON.
+ */
+public final class GrillaAsientos {
+
+    public static final String MEDIA_TYPE = "application/vnd.tf25.seatmap+bin";
+
+    public static final int LIBRE = 0;
+    public static final int BLOQUEADO = 1;
+    public static final int VENDIDO = 2;
+
+    private static final byte VERSION = 1;
+    private static final int MAX_DIMENSION = 0xFFFF;
+    private static final long MAX_ASIENTOS = 1L << 20;
+
+    private final int filas;
+    private final int columnas;
+    private final byte[] estados;
+
+    public GrillaAsientos(int filas, int columnas) {
+        if (!dimensionesValidas(filas, columnas)) {
+            throw new IllegalArgumentException("Dimensiones de grilla inválidas: " + filas + "x" + columnas);
+        }
+        this.filas = filas;
+        this.columnas = columnas;
+        this.estados = new byte[(filas * columnas + 3) / 4];
+    }
+
+    /** Dimensiones representables: cada una entra en uint16 y el total no pasa de {@code MAX_ASIENTOS}. */
+    public static boolean dimensionesValidas(int filas, int columnas) {
+        return filas >= 0 && columnas >= 0 && filas <= MAX_DIMENSION && columnas <= MAX_DIMENSION
+                && (long) filas * columnas <= MAX_ASIENTOS;
+    }
+
+    /**
+     * Arma la grilla a partir de la lista de asientos no libres. Si las dimensiones informadas no alcanzan
+     * (o vienen en null) se agrandan hasta cubrir el asiento más alejado; un asiento con una posición
+     * imposible (p.ej. r70000c1) no agranda la grilla y queda afuera. Las dimensiones del evento vienen
+     * de la cátedra: si no son representables se ignoran y la grilla se arma solo con los asientos.
+     */
+    public static GrillaAsientos desde(List<AsientoDto> asientos, Integer filas, Integer columnas) {
+        int f = filas != null ? filas : 0;
+        int c = columnas != null ? columnas : 0;
+        if (!dimensionesValidas(f, c)) {
+            f = 0;
+            c = 0;
+        }
+        for (AsientoDto a : asientos) {
+            int nf = Math.max(f, a.fila());
+            int nc = Math.max(c, a.columna());
+            if (dimensionesValidas(nf, nc)) {
+                f = nf;
+                c = nc;
+            }
+        }
+        GrillaAsientos grilla = new GrillaAsientos(f, c);
+        for (AsientoDto a : asientos) {
+            grilla.marcar(a.fila(), a.columna(), codigo(a.estado()));
+        }
+        return grilla;
+    }
+
+    /** Traduce el estado textual ("Vendido", "Bloqueado", ...) al código de 2 bits. */
+    public static int codigo(String estado) {
+        if (estado == null) return LIBRE;
+        String e = estado.trim().toUpperCase(Locale.ROOT);
+        if (e.contains("VEND") || e.contains("OCUP")) return VENDIDO;
+        if (e.contains("BLOQ") || e.contains("RESERV")) return BLOQUEADO;
+        return LIBRE;
+    }
+
+    /** Filas y columnas empiezan en 1; las posiciones fuera de la grilla se ignoran. */
+    public void marcar(int fila, int columna, int codigo) {
+        if (fila < 1 || columna < 1 || fila > filas || columna > columnas) return;
+        int i = (fila - 1) * columnas + (columna - 1);
+        int shift = (i & 3) * 2;
+        estados[i >> 2] = (byte) ((estados[i >> 2] & ~(3 << shift)) | ((codigo & 3) << shift));
+    }
+
+    public int estado(int fila, int columna) {
+        if (fila < 1 || columna < 1 || fila > filas || columna > columnas) return LIBRE;
+        int i = (fila - 1) * columnas + (columna - 1);
+        return (estados[i >> 2] >> ((i & 3) * 2)) & 3;
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    public byte[] serializar() {
+        byte[] out = new byte[5 + estados.length];
+        out[0] = VERSION;
+        out[1] = (byte) (filas >>> 8);
+        out[2] = (byte) filas;
+        out[3] = (byte) (columnas >>> 8);
+        out[4] = (byte) columnas;
+        System.arraycopy(estados, 0, out, 5, estados.length);
+        return out;
+    }
+
+    public static GrillaAsientos deserializar(byte[] raw) {
+        if (raw == null || raw.length < 5 || raw[0] != VERSION) {
+            throw new IllegalArgumentException("Mapa de asientos binario inválido");
+        }
+        int filas = ((raw[1] & 0xFF) << 8) | (raw[2] & 0xFF);
+        int columnas = ((raw[3] & 0xFF) << 8) | (raw[4] & 0xFF);
+        GrillaAsientos grilla = new GrillaAsientos(filas, columnas);
+        if (raw.length - 5 != grilla.estados.length) {
+            throw new IllegalArgumentException("Mapa de asientos binario truncado");
+        }
+        System.arraycopy(raw, 5, grilla.estados, 0, grilla.estados.length);
+        return grilla;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.tf25.application.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado keyset. {@code siguienteCursor} es opaco y null en la última página;
+ * los controllers lo devuelven en el header {@code X-Next-Cursor} y el body sigue siendo la lista.
+ */
+public record Pagina<T>(
+        List<T> items,
+        String siguienteCursor
+) {
+    public <R> Pagina<R> map(Function<? super T, ? extends R> fn) {
+        return new Pagina<>(items.stream().<R>map(fn).toList(), siguienteCursor);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.tf25.application.dto;
+
+import java.util.List;
+
+/**
+ * Pedido del proxy para sincronizar varios eventos de una vez ({@code POST /api/eventos/sync/lote}).
+ */
+public record PeticionSyncLoteDto(
+        List<String> externalIds
+) {
+}
@@ -0,0 +1,11 @@
+package org.example.tf25.application.dto;
+
+import java.util.List;
+
+/**
+ * Resultado por evento de {@code POST /api/eventos/sync/lote}, en el orden del pedido (sin repetidos).
+ */
+public record RespuestaSyncLoteDto(
+        List<ResultadoSyncEvento> resultados
+) {
+}
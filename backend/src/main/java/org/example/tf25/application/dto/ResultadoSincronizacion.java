@@ -0,0 +1,20 @@
+package org.example.tf25.application.dto;
+
+/**
+ * Resumen de una corrida de sincronización de eventos contra la cátedra.
+ */
+public record ResultadoSincronizacion(
+        int insertados,
+        int actualizados,
+        int eliminados,
+        int sinCambios
+) {
+    public static ResultadoSincronizacion vacio() {
+        return new ResultadoSincronizacion(0, 0, 0, 0);
+    }
+
+    /** Eventos remotos procesados (los que vinieron en la lista de la cátedra). */
+    public int procesados() {
+        return insertados + actualizados + sinCambios;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.tf25.application.dto;
+
+/**
+ * Resultado de sincronizar un evento dentro de un lote ({@code POST /api/eventos/sync/lote}).
+ *
+ * @param detalle motivo del ERROR / NO_ENCONTRADO; null en los demás casos
+ */
+public record ResultadoSyncEvento(String externalId, Resultado resultado, String detalle) {
+
+    public enum Resultado {
+        INSERTADO,
+        ACTUALIZADO,
+        SIN_CAMBIOS,
+        /** La cátedra respondió sin datos: se marcó ELIMINADO localmente (si existía). */
+        ELIMINADO,
+        /** El proxy respondió 404: no se toca el evento local. */
+        NO_ENCONTRADO,
+        ERROR
+    }
+
+    public static ResultadoSyncEvento de(String externalId, Resultado resultado) {
+        return new ResultadoSyncEvento(externalId, resultado, null);
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.tf25.application.dto;
+
+import java.util.Set;
+
+/**
+ * Evento de aplicación: una venta pasó a CONFIRMADA.
+ * Se publica dentro de la transacción que confirma; los listeners deciden si actúan antes o después del commit.
+ */
+public record VentaConfirmadaEvent(
+        Long ventaId,
+        String externalEventoId,
+        Set<String> asientosIds
+) {
+    public VentaConfirmadaEvent {
+        asientosIds = asientosIds == null ? Set.of() : Set.copyOf(asientosIds);
+    }
+}
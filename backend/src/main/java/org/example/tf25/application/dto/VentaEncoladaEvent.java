@@ -0,0 +1,8 @@
+package org.example.tf25.application.dto;
+
+/**
+ * Evento de aplicación: se encoló la notificación de una venta en el outbox.
+ * El despachador lo escucha después del commit para no esperar a su próximo sondeo.
+ */
+public record VentaEncoladaEvent(Long ventaId) {
+}
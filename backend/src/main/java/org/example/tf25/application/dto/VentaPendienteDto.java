@@ -0,0 +1,20 @@
+package org.example.tf25.application.dto;
+
+import org.example.tf25.domain.model.VentaEstado;
+
+import java.time.Instant;
+
+/**
+ * Venta PENDIENTE de notificar a la cátedra, para {@code GET /api/ventas/pendientes}.
+ * Se proyecta directo desde la consulta (sin cargar la entidad ni sus colecciones).
+ */
+public record VentaPendienteDto(
+        Long id,
+        String externalEventoId,
+        String sessionId,
+        VentaEstado estado,
+        Integer intentos,
+        String ultimoError,
+        Instant nextRetryAt
+) {
+}
@@ -0,0 +1,368 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.DeltaAsiento;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Distribuye por SSE los deltas de asientos de cada evento (bloqueado, liberado, vendido).
+ * <ul>
+ *   <li>Los deltas llegan por Redis pub/sub (los publican el proxy y el backend), así todas las réplicas
+ *       ven la misma secuencia. Si llega un hueco o un delta fuera de orden, los suscriptores reciben
+ *       {@code resync} en vez del delta.</li>
+ *   <li>Cada evento guarda los últimos N deltas: un cliente que reconecta con {@code Last-Event-ID}
+ *       recibe lo que se perdió. Si el buffer ya no cubre ese punto se le manda {@code resync}
+ *       y tiene que volver a pedir el mapa completo.</li>
+ *   <li>Un canal sin suscriptores ni deltas durante {@code inactividad} se descarta (con su buffer);
+ *       si el cliente vuelve después, recibe {@code resync}.</li>
+ *   <li>Sin Redis ({@code tf25.session.store=memoria}, una réplica) el backend publica sus propios deltas
+ *       con {@link #publicarLocal}; los locks del proxy no llegan.</li>
+ * </ul>
+ */
+@Component
+public class AsientosStreamHub {
+    private static final Logger log = LoggerFactory.getLogger(AsientosStreamHub.class);
+
+    static final String EVENTO_DELTA = "asiento";
+    static final String EVENTO_RESYNC = "resync";
+
+    private final Map<String, Canal> canales = new ConcurrentHashMap<>();
+    private final int capacidadBuffer;
+    private final long timeoutMs;
+    private final long inactividadNanos;
+    private final LongSupplier reloj;
+
+    @Autowired
+    public AsientosStreamHub(@Value("${tf25.asientos.stream.buffer:1024}") int capacidadBuffer,
+                             @Value("${tf25.asientos.stream.timeout:30m}") Duration timeout,
+                             @Value("${tf25.asientos.stream.inactividad:5m}") Duration inactividad) {
+        this(capacidadBuffer, timeout, inactividad, System::nanoTime);
+    }
+
+    AsientosStreamHub(int capacidadBuffer, Duration timeout, Duration inactividad, LongSupplier reloj) {
+        this.capacidadBuffer = Math.max(1, capacidadBuffer);
+        this.timeoutMs = timeout.toMillis();
+        this.inactividadNanos = inactividad.toNanos();
+        this.reloj = reloj;
+    }
+
+    /**
+     * Abre un stream para el evento.
+     *
+     * @param ultimoId valor de Last-Event-ID (null en la primera conexión)
+     */
+    public SseEmitter suscribir(String externalEventoId, Long ultimoId) {
+        return suscribir(externalEventoId, ultimoId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter suscribir(String externalEventoId, Long ultimoId, SseEmitter emitter) {
+        Canal canal;
+        // si el canal se descartó entre el get y el agregar, se reintenta con uno nuevo
+        do {
+            canal = canal(externalEventoId);
+        } while (!canal.agregar(emitter, ultimoId, reloj.getAsLong()));
+        Canal suscripto = canal;
+        emitter.onCompletion(() -> suscripto.quitar(emitter, reloj.getAsLong()));
+        emitter.onTimeout(() -> suscripto.quitar(emitter, reloj.getAsLong()));
+        emitter.onError(e -> suscripto.quitar(emitter, reloj.getAsLong()));
+        return emitter;
+    }
+
+    /** Mensaje crudo recibido del canal {@code tf25:asientos:{externalEventoId}}. */
+    public void recibir(String externalEventoId, String mensaje) {
+        DeltaAsiento delta = DeltaAsiento.parse(mensaje);
+        if (delta == null) {
+            log.debug("Delta de asientos ignorado para evento {}: '{}'", externalEventoId, mensaje);
+            return;
+        }
+        while (!canal(externalEventoId).publicar(delta, reloj.getAsLong())) {
+            // descartado en el medio: va al canal nuevo
+        }
+    }
+
+    /**
+     * Delta generado en esta réplica cuando no hay Redis: la secuencia la pone el canal. Si nadie está
+     * suscripto al evento no se crea el canal (no hay a quién reenviarle nada).
+     */
+    public void publicarLocal(String externalEventoId, String asientoId, String estado) {
+        Canal canal = canales.get(externalEventoId);
+        if (canal != null) {
+            canal.publicarSiguiente(asientoId, estado, reloj.getAsLong());
+        }
+    }
+
+    /**
+     * Comentario periódico: mantiene viva la conexión detrás de proxies y detecta clientes caídos.
+     * De paso descarta los canales inactivos.
+     */
+    @Scheduled(fixedDelayString = "${tf25.asientos.stream.heartbeat-ms:15000}")
+    public void latido() {
+        canales.values().forEach(Canal::latido);
+        descartarInactivos();
+    }
+
+    void descartarInactivos() {
+        long ahora = reloj.getAsLong();
+        canales.forEach((id, canal) -> {
+            if (canal.cerrarSiInactivo(ahora, inactividadNanos)) {
+                canales.remove(id, canal);
+                log.debug("Canal de asientos descartado por inactividad: evento {}", id);
+            }
+        });
+    }
+
+    private Canal canal(String externalEventoId) {
+        return canales.computeIfAbsent(externalEventoId, id -> new Canal(capacidadBuffer, reloj.getAsLong()));
+    }
+
+    int canalesAbiertos() {
+        return canales.size();
+    }
+
+    int suscriptores(String externalEventoId) {
+        Canal canal = canales.get(externalEventoId);
+        return canal == null ? 0 : canal.cantidad();
+    }
+
+    private static final class Canal {
+        // estado del canal (buffer, secuencia, suscriptores, cola); nunca se retiene mientras se escribe a un cliente
+        private final ReentrantLock lock = new ReentrantLock();
+        // quien lo tiene vacía la cola; los demás encolan y siguen (ver drenar)
+        private final ReentrantLock envio = new ReentrantLock();
+        // envíos en el orden en que se decidieron bajo `lock`, o sea en el orden de la secuencia
+        private final ArrayDeque<Envio> cola = new ArrayDeque<>();
+        private final ArrayDeque<DeltaAsiento> buffer;
+        private final int capacidad;
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private long ultimoSeq;
+        private long ultimaActividad;
+        // ya se sacó del mapa: no acepta suscriptores ni deltas (van a un canal nuevo)
+        private boolean cerrado;
+
+        Canal(int capacidad, long ahora) {
+            this.capacidad = capacidad;
+            this.buffer = new ArrayDeque<>(Math.min(capacidad, 64));
+            this.ultimaActividad = ahora;
+        }
+
+        /** @return false si el canal ya estaba cerrado */
+        boolean agregar(SseEmitter emitter, Long ultimoId, long ahora) {
+            lock.lock();
+            try {
+                if (cerrado) return false;
+                ultimaActividad = ahora;
+                if (ultimoId != null && ultimoId != ultimoSeq) {
+                    List<SseEmitter> destino = List.of(emitter);
+                    reenvioDesde(ultimoId).forEach(evento -> cola.addLast(new Envio(destino, evento)));
+                }
+                emitters.add(emitter);
+            } finally {
+                lock.unlock();
+            }
+            drenar();
+            return true;
+        }
+
+        /** Lo que se perdió un cliente que reconecta con {@code ultimoId}, o resync si el buffer no lo cubre. */
+        private List<SseEmitter.SseEventBuilder> reenvioDesde(long ultimoId) {
+            boolean cubierto = ultimoId < ultimoSeq && !buffer.isEmpty() && buffer.peekFirst().seq() <= ultimoId + 1;
+            if (!cubierto) {
+                return List.of(resync(ultimoSeq));
+            }
+            List<SseEmitter.SseEventBuilder> pendientes = new ArrayList<>();
+            for (DeltaAsiento d : buffer) {
+                if (d.seq() > ultimoId) pendientes.add(evento(d));
+            }
+            return pendientes;
+        }
+
+        /** @return false si el canal ya estaba cerrado */
+        boolean publicar(DeltaAsiento delta, long ahora) {
+            SseEmitter.SseEventBuilder evento;
+            lock.lock();
+            try {
+                if (cerrado) return false;
+                // mismo seq que el último: duplicado, ya lo tenemos
+                if (delta.seq() == ultimoSeq) return true;
+                if (ultimoSeq == 0 || delta.seq() == ultimoSeq + 1) {
+                    // canal nuevo (sin referencia todavía) o el siguiente esperado
+                    agregarAlBuffer(delta, ahora);
+                    evento = evento(delta);
+                } else {
+                    // hueco o fuera de orden: el buffer ya no sirve para reanudar y los clientes tienen que
+                    // volver a pedir el mapa completo
+                    log.debug("Delta de asientos fuera de secuencia (esperado {}, llegó {}): resync",
+                            ultimoSeq + 1, delta.seq());
+                    buffer.clear();
+                    if (delta.seq() > ultimoSeq) agregarAlBuffer(delta, ahora);
+                    ultimaActividad = ahora;
+                    evento = resync(ultimoSeq);
+                }
+                encolar(evento);
+            } finally {
+                lock.unlock();
+            }
+            drenar();
+            return true;
+        }
+
+        void publicarSiguiente(String asientoId, String estado, long ahora) {
+            lock.lock();
+            try {
+                // cerrado: no quedaban suscriptores, no hay a quién mandarlo
+                if (cerrado) return;
+                DeltaAsiento delta = new DeltaAsiento(ultimoSeq + 1, asientoId, estado);
+                agregarAlBuffer(delta, ahora);
+                encolar(evento(delta));
+            } finally {
+                lock.unlock();
+            }
+            drenar();
+        }
+
+        private void agregarAlBuffer(DeltaAsiento delta, long ahora) {
+            buffer.addLast(delta);
+            if (buffer.size() > capacidad) {
+                buffer.removeFirst();
+            }
+            ultimoSeq = delta.seq();
+            ultimaActividad = ahora;
+        }
+
+        /** Lo cierra si no tiene suscriptores ni actividad en {@code inactividadNanos}. */
+        boolean cerrarSiInactivo(long ahora, long inactividadNanos) {
+            lock.lock();
+            try {
+                if (emitters.isEmpty() && ahora - ultimaActividad >= inactividadNanos) {
+                    cerrado = true;
+                }
+                return cerrado;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void latido() {
+            lock.lock();
+            try {
+                encolar(SseEmitter.event().comment("ping"));
+            } finally {
+                lock.unlock();
+            }
+            drenar();
+        }
+
+        void quitar(SseEmitter emitter, long ahora) {
+            lock.lock();
+            try {
+                // la inactividad se cuenta desde que se fue el último suscriptor
+                if (emitters.remove(emitter)) ultimaActividad = ahora;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int cantidad() {
+            lock.lock();
+            try {
+                return emitters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Bajo {@code lock}: el evento va a los suscriptores de este momento. */
+        private void encolar(SseEmitter.SseEventBuilder evento) {
+            if (!emitters.isEmpty()) cola.addLast(new Envio(List.copyOf(emitters), evento));
+        }
+
+        /**
+         * Envía lo encolado sin el lock de estado: un cliente lento demora los envíos de este evento, pero
+         * no frena suscripciones, latidos ni el registro de nuevos deltas (quien llega mientras otro hilo
+         * está enviando solo encola). Se vuelve a mirar la cola al soltar {@code envio} para no dejar
+         * nada encolado justo en ese momento.
+         */
+        private void drenar() {
+            while (envio.tryLock()) {
+                try {
+                    List<SseEmitter> caidos = new ArrayList<>();
+                    Envio siguiente;
+                    while ((siguiente = siguienteEnvio()) != null) {
+                        for (SseEmitter emitter : siguiente.destino()) {
+                            if (!caidos.contains(emitter) && !enviar(emitter, siguiente.evento())) caidos.add(emitter);
+                        }
+                    }
+                    if (!caidos.isEmpty()) quitarCaidos(caidos);
+                } finally {
+                    envio.unlock();
+                }
+                if (!hayEnvios()) return;
+            }
+        }
+
+        private Envio siguienteEnvio() {
+            lock.lock();
+            try {
+                return cola.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hayEnvios() {
+            lock.lock();
+            try {
+                return !cola.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void quitarCaidos(List<SseEmitter> caidos) {
+            lock.lock();
+            try {
+                emitters.removeAll(caidos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private record Envio(List<SseEmitter> destino, SseEmitter.SseEventBuilder evento) {
+        }
+
+        private static SseEmitter.SseEventBuilder resync(long seq) {
+            return SseEmitter.event().name(EVENTO_RESYNC).id(String.valueOf(seq)).data("");
+        }
+
+        private static SseEmitter.SseEventBuilder evento(DeltaAsiento d) {
+            return SseEmitter.event().name(EVENTO_DELTA).id(String.valueOf(d.seq())).data(d);
+        }
+
+        /**
+         * Un fallo de envío es un cliente desconectado: se descarta sin cortar al resto.
+         * No hace falta completar el emitter; tras un IOException el contenedor cierra el request.
+         */
+        private static boolean enviar(SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+            try {
+                emitter.send(evento);
+                return true;
+            } catch (Exception ex) {
+                return false;
+            }
+        }
+    }
+}
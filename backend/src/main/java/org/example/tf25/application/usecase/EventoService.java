@@ -6,27 +6,47 @@ import org.slf4j.LoggerFactory;
 import org.example.tf25.domain.model.Evento;
 import org.example.tf25.domain.model.EventoEstado;
 import org.example.tf25.domain.repository.EventoRepository;
-import org.example.tf25.domain.repository.VentaRepository;
-import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.repository.AsientoVendidoRepository;
 import org.example.tf25.application.dto.AsientoDto;
+import org.example.tf25.application.dto.GrillaAsientos;
+import org.example.tf25.application.dto.Pagina;
 import org.example.tf25.application.dto.PeticionBloqueoAsientosDto;
 import org.example.tf25.application.dto.RespuestaBloqueoAsientosDto;
 import org.example.tf25.application.dto.ResultadoBloqueoAsientoDto;
+import org.example.tf25.application.dto.ResultadoSincronizacion;
+import org.example.tf25.application.dto.ResultadoSyncEvento;
 import org.example.tf25.application.dto.SessionState;
+import org.example.tf25.infrastructure.persistence.EventoBulkWriter;
 import org.example.tf25.proxy.dto.EventoProxyDto;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import org.springframework.http.ResponseEntity;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class EventoService {
@@ -34,14 +54,33 @@ public class EventoService {
 
     private final EventoRepository eventoRepository;
     private final RestClient restClient;
-    private final VentaRepository ventaRepository;
+    private final AsientoVendidoRepository asientoVendidoRepository;
+    private final EventoBulkWriter eventoBulkWriter;
+    private final MapaAsientosCache mapaAsientosCache;
+    private final int paralelismoLote;
+    private final int tamanioPagina;
+    private final int tamanioPaginaMax;
 
-    public EventoService(VentaRepository ventaRepository, 
+    private static final Sort ORDEN_EVENTOS = Sort.by(Sort.Order.asc("id"));
+
+    private static final ZoneId ZONA_EVENTOS = ZoneId.of("America/Argentina/Mendoza");
+
+    public EventoService(AsientoVendidoRepository asientoVendidoRepository,
             EventoRepository eventoRepository,
-            RestClient restClient
+            RestClient restClient,
+            EventoBulkWriter eventoBulkWriter,
+            MapaAsientosCache mapaAsientosCache,
+            @Value("${tf25.sync.lote.paralelismo:8}") int paralelismoLote,
+            @Value("${tf25.paginacion.tamanio:100}") int tamanioPagina,
+            @Value("${tf25.paginacion.tamanio-max:500}") int tamanioPaginaMax
     ) {
         this.eventoRepository = eventoRepository;
-        this.restClient = restClient; this.ventaRepository = ventaRepository;
+        this.restClient = restClient; this.asientoVendidoRepository = asientoVendidoRepository;
+        this.eventoBulkWriter = eventoBulkWriter;
+        this.mapaAsientosCache = mapaAsientosCache;
+        this.paralelismoLote = Math.max(1, paralelismoLote);
+        this.tamanioPagina = tamanioPagina;
+        this.tamanioPaginaMax = tamanioPaginaMax;
     }
 
     @Transactional(readOnly = true)
@@ -54,6 +93,39 @@ public class EventoService {
         return eventoRepository.findByEstado(estado);
     }
 
+    /**
+     * Listado keyset de eventos por id ascendente (los ids crecen con el alta, así que es orden de creación).
+     * {@code estado} null trae todos; {@code desde} inclusivo y {@code hasta} exclusivo sobre fechaHora.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<Evento> listarPagina(EventoEstado estado, LocalDateTime desde, LocalDateTime hasta,
+                                       String cursor, Integer limite) {
+        Long despuesDe = (cursor == null || cursor.isBlank()) ? null : PaginacionKeyset.leerEvento(cursor);
+
+        Specification<Evento> spec = (root, query, cb) -> {
+            Path<LocalDateTime> fechaHora = root.get("fechaHora");
+            List<Predicate> condiciones = new ArrayList<>();
+            if (estado != null) condiciones.add(cb.equal(root.get("estado"), estado));
+            if (desde != null) condiciones.add(cb.greaterThanOrEqualTo(fechaHora, desde));
+            if (hasta != null) condiciones.add(cb.lessThan(fechaHora, hasta));
+            if (despuesDe != null) condiciones.add(cb.greaterThan(root.get("id"), despuesDe));
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+
+        if (PaginacionKeyset.sinPaginar(cursor, limite)) {
+            return new Pagina<>(eventoRepository.findAll(spec, ORDEN_EVENTOS), null);
+        }
+        int tamanio = PaginacionKeyset.tamanio(limite, tamanioPagina, tamanioPaginaMax);
+        List<Evento> filas = eventoRepository.findBy(spec, q -> q.sortBy(ORDEN_EVENTOS).limit(tamanio + 1).all());
+        return PaginacionKeyset.pagina(filas, tamanio, PaginacionKeyset::deEvento);
+    }
+
+    /** true si el evento de la cátedra ya está sincronizado localmente. */
+    @Transactional(readOnly = true)
+    public boolean existeEvento(String externalId) {
+        return externalId != null && eventoRepository.existsByExternalId(externalId);
+    }
+
     @Transactional(readOnly = true)
     public Optional<Evento> findById(Long id) {
         return eventoRepository.findById(id);
@@ -61,6 +133,8 @@ public class EventoService {
 
     @Transactional
     public Evento save(Evento evento) {
+        // Alta/edición manual: sin huella, la próxima sync vuelve a aplicar los datos de la cátedra
+        evento.setHuellaRemota(null);
         return eventoRepository.save(evento);
     }
 
@@ -74,11 +148,12 @@ public class EventoService {
 
     /**
      * Sincroniza eventos desde el proxy de la cátedra.
-     * - Si el evento ya existe (mismo externalId), se actualiza.
+     * - Si el evento ya existe (mismo externalId) y cambió, se actualiza.
      * - Si no existe, se crea.
-     * Devuelve cuántos eventos se procesaron.
+     * - Lo que tenemos local y ya no vino en la lista se marca ELIMINADO.
+     * Devuelve el resumen de filas insertadas/actualizadas/eliminadas/sin cambios.
      */
-    public int sincronizarEventos() {
+    public ResultadoSincronizacion sincronizarEventos() {
         try {
             log.debug("EventoService: solicitando lista de eventos al proxy...");
             EventoProxyDto[] remotos = restClient.get()
@@ -88,67 +163,107 @@ public class EventoService {
 
             if (remotos == null) {
                 log.info("Sincronización de eventos: no se recibieron eventos remotos");
-                return 0;
+                return ResultadoSincronizacion.vacio();
             }
 
             return procesarSincronizacion(remotos);
 
         } catch (Exception ex) {
             log.warn("No se pudo sincronizar eventos desde el proxy: {}", ex.toString());
-            return 0;
+            return ResultadoSincronizacion.vacio();
         }
     }
 
-    @Transactional
-    protected int procesarSincronizacion(EventoProxyDto[] remotos) {
-        // 1. Guardar la lista de IDs externos que siguen vivos en la cátedra
-        List<String> idsRemotos = Arrays.stream(remotos)
-                .filter(d -> d.getId() != null)
-                .map(d -> d.getId().toString())
-                .toList();
-
-        int count = 0;
+    /**
+     * Sync set-based: una consulta para traer los existentes por externalId,
+     * inserts/updates en batch JDBC y un único UPDATE para el soft delete.
+     */
+    protected ResultadoSincronizacion procesarSincronizacion(EventoProxyDto[] remotos) {
+        // 1. Indexar lo remoto por externalId (si viene repetido, gana el último)
+        Map<String, EventoProxyDto> remotosPorId = new LinkedHashMap<>();
         for (EventoProxyDto dto : remotos) {
-            String externalId = dto.getId() != null ? dto.getId().toString() : null;
+            if (dto == null || dto.getId() == null) {
+                log.warn("Sincronización de eventos: se ignora evento remoto sin id");
+                continue;
+            }
+            remotosPorId.put(dto.getId().toString(), dto);
+        }
 
-            Evento evento = externalId != null
-                    ? eventoRepository.findByExternalId(externalId).orElseGet(Evento::new)
-                    : new Evento();
+        // 2. Traer en una sola consulta los eventos locales que ya conocemos
+        Map<String, Evento> existentes = new HashMap<>();
+        if (!remotosPorId.isEmpty()) {
+            for (Evento e : eventoRepository.findByExternalIdIn(remotosPorId.keySet())) {
+                existentes.put(e.getExternalId(), e);
+            }
+        }
 
-            evento.setExternalId(externalId);
-            evento.setNombre(dto.getNombre());
-            evento.setDescripcion(dto.getDescripcion() != null ? dto.getDescripcion() : dto.getResumen());
-            if (dto.getFechaHora() != null) {
-                LocalDateTime fechaLocal = LocalDateTime.ofInstant(
-                        dto.getFechaHora(),
-                        ZoneId.of("America/Argentina/Mendoza")
-                );
-                evento.setFechaHora(fechaLocal);
+        // 3. Clasificar por huella: solo se escriben los eventos cuyos datos remotos cambiaron
+        List<Evento> nuevos = new ArrayList<>();
+        List<Evento> modificados = new ArrayList<>();
+        int sinCambios = 0;
+        for (Map.Entry<String, EventoProxyDto> entry : remotosPorId.entrySet()) {
+            Evento actual = existentes.get(entry.getKey());
+            String huella = HuellaEvento.de(entry.getValue());
+
+            if (actual != null && sinCambiosRemotos(actual, huella)) {
+                sinCambios++;
+                continue;
             }
-            evento.setCupo(dto.getCupo());
-            evento.setFilaAsientos(dto.getFilaAsientos());
-            evento.setColumnAsientos(dto.getColumnAsientos());
-            evento.setPrecio(dto.getPrecio());
-            evento.setEstado(EventoEstado.ACTIVO); // Si vino en la lista, está activo
 
-            eventoRepository.save(evento);
-            count++;
+            Evento deseado = deseado(entry.getKey(), entry.getValue(), actual, huella);
+            (actual == null ? nuevos : modificados).add(deseado);
         }
 
-        // 2. "Soft Delete": Marcar como ELIMINADO lo que tenemos local pero no vino en remotos
-        List<Evento> locales = eventoRepository.findAll();
-        for (Evento local : locales) {
-            if (local.getExternalId() != null && !idsRemotos.contains(local.getExternalId())) {
-                if (local.getEstado() != EventoEstado.ELIMINADO) {
-                    local.setEstado(EventoEstado.ELIMINADO);
-                    eventoRepository.save(local);
-                    log.info("Evento {} marcado como ELIMINADO porque ya no existe en la cátedra", local.getExternalId());
-                }
+        // 4. Escribir todo en una transacción corta
+        int eliminados = eventoBulkWriter.aplicar(nuevos, modificados, remotosPorId.keySet());
+
+        ResultadoSincronizacion resultado = new ResultadoSincronizacion(
+                nuevos.size(), modificados.size(), eliminados, sinCambios);
+        log.info("Sincronización de eventos completada: {} insertados, {} actualizados, {} eliminados, {} sin cambios",
+                resultado.insertados(), resultado.actualizados(), resultado.eliminados(), resultado.sinCambios());
+        return resultado;
+    }
+
+    /**
+     * Evento a escribir con los datos remotos; si ya existía conserva su id (y su fecha si la cátedra no la manda).
+     */
+    private Evento deseado(String externalId, EventoProxyDto dto, Evento actual, String huella) {
+        Evento deseado = new Evento();
+        deseado.setExternalId(externalId);
+        aplicarDatosRemotos(deseado, dto);
+        deseado.setHuellaRemota(huella);
+        if (actual != null) {
+            if (deseado.getFechaHora() == null) {
+                // Si la cátedra no manda fecha no pisamos la que ya teníamos
+                deseado.setFechaHora(actual.getFechaHora());
             }
+            deseado.setId(actual.getId());
+        }
+        return deseado;
+    }
+
+    /**
+     * Copia al evento local los datos que vienen de la cátedra. Si vino en la cátedra, está ACTIVO.
+     */
+    private void aplicarDatosRemotos(Evento evento, EventoProxyDto dto) {
+        evento.setNombre(dto.getNombre());
+        evento.setDescripcion(dto.getDescripcion() != null ? dto.getDescripcion() : dto.getResumen());
+        if (dto.getFechaHora() != null) {
+            evento.setFechaHora(LocalDateTime.ofInstant(dto.getFechaHora(), ZONA_EVENTOS));
         }
+        evento.setCupo(dto.getCupo());
+        evento.setFilaAsientos(dto.getFilaAsientos());
+        evento.setColumnAsientos(dto.getColumnAsientos());
+        evento.setPrecio(dto.getPrecio());
+        evento.setEstado(EventoEstado.ACTIVO);
+    }
 
-        log.info("Sincronización de eventos completada: {} eventos procesados", count);
-        return count;
+    /**
+     * Un evento no necesita escribirse si ya se sincronizó con los mismos datos remotos y sigue ACTIVO
+     * (si estaba ELIMINADO y reaparece en la cátedra hay que reactivarlo).
+     */
+    private static boolean sinCambiosRemotos(Evento actual, String huella) {
+        return huella.equals(actual.getHuellaRemota()) && actual.getEstado() == EventoEstado.ACTIVO;
     }
 
     /**
@@ -178,21 +293,15 @@ public class EventoService {
             Evento evento = eventoRepository.findByExternalId(externalId)
                     .orElseGet(Evento::new);
 
-            evento.setExternalId(externalId);
-            evento.setNombre(dto.getNombre());
-            evento.setDescripcion(dto.getDescripcion() != null ? dto.getDescripcion() : dto.getResumen());
-            if (dto.getFechaHora() != null) {
-                LocalDateTime fechaLocal = LocalDateTime.ofInstant(
-                        dto.getFechaHora(),
-                        ZoneId.of("America/Argentina/Mendoza")
-                );
-                evento.setFechaHora(fechaLocal);
+            String huella = HuellaEvento.de(dto);
+            if (evento.getId() != null && sinCambiosRemotos(evento, huella)) {
+                log.debug("Sincronización individual: externalId={} sin cambios, no se escribe", externalId);
+                return 1;
             }
-            evento.setCupo(dto.getCupo());
-            evento.setFilaAsientos(dto.getFilaAsientos());
-            evento.setColumnAsientos(dto.getColumnAsientos());
-            evento.setPrecio(dto.getPrecio());
-            evento.setEstado(EventoEstado.ACTIVO);
+
+            evento.setExternalId(externalId);
+            aplicarDatosRemotos(evento, dto);
+            evento.setHuellaRemota(huella);
 
             eventoRepository.save(evento);
 
@@ -204,17 +313,152 @@ public class EventoService {
         }
     }
 
+    /**
+     * Sincroniza un lote de eventos (cambios avisados por Kafka vía proxy). Los GET al proxy corren en
+     * paralelo (hasta {@code tf25.sync.lote.paralelismo} a la vez) y todos los inserts/updates/bajas se
+     * aplican en una sola transacción batch. Devuelve el resultado por evento, en el orden recibido.
+     */
+    public List<ResultadoSyncEvento> sincronizarEventosPorExternalIds(Collection<String> externalIds) {
+        List<String> ids = externalIds.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, RemotoObtenido> remotos = obtenerRemotos(ids);
+
+        Map<String, Evento> existentes = new HashMap<>();
+        for (Evento e : eventoRepository.findByExternalIdIn(ids)) {
+            existentes.put(e.getExternalId(), e);
+        }
+
+        List<Evento> nuevos = new ArrayList<>();
+        List<Evento> modificados = new ArrayList<>();
+        List<String> aEliminar = new ArrayList<>();
+        List<ResultadoSyncEvento> resultados = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            RemotoObtenido remoto = remotos.get(id);
+            Evento actual = existentes.get(id);
+            if (remoto.error() != null) {
+                resultados.add(new ResultadoSyncEvento(id, ResultadoSyncEvento.Resultado.ERROR, remoto.error()));
+            } else if (remoto.noEncontrado()) {
+                resultados.add(new ResultadoSyncEvento(id, ResultadoSyncEvento.Resultado.NO_ENCONTRADO, "404 del proxy"));
+            } else if (remoto.dto() == null) {
+                // igual que la sync individual: sin datos en la cátedra -> ELIMINADO localmente
+                if (actual != null && actual.getEstado() != EventoEstado.ELIMINADO) {
+                    aEliminar.add(id);
+                }
+                resultados.add(ResultadoSyncEvento.de(id, ResultadoSyncEvento.Resultado.ELIMINADO));
+            } else {
+                String huella = HuellaEvento.de(remoto.dto());
+                if (actual != null && sinCambiosRemotos(actual, huella)) {
+                    resultados.add(ResultadoSyncEvento.de(id, ResultadoSyncEvento.Resultado.SIN_CAMBIOS));
+                } else if (actual == null) {
+                    nuevos.add(deseado(id, remoto.dto(), null, huella));
+                    resultados.add(ResultadoSyncEvento.de(id, ResultadoSyncEvento.Resultado.INSERTADO));
+                } else {
+                    modificados.add(deseado(id, remoto.dto(), actual, huella));
+                    resultados.add(ResultadoSyncEvento.de(id, ResultadoSyncEvento.Resultado.ACTUALIZADO));
+                }
+            }
+        }
+
+        // si falla la escritura se propaga: el proxy no commitea el offset y reintenta el lote
+        eventoBulkWriter.aplicarLote(nuevos, modificados, aEliminar);
+        log.info("Sincronización por lote: {} eventos ({} insertados, {} actualizados, {} eliminados)",
+                ids.size(), nuevos.size(), modificados.size(), aEliminar.size());
+        return resultados;
+    }
+
+    /** GET concurrentes al proxy, acotados por un semáforo; cada resultado trae el dto, 404 o el error. */
+    private Map<String, RemotoObtenido> obtenerRemotos(List<String> ids) {
+        Semaphore cupos = new Semaphore(paralelismoLote);
+        Map<String, Future<RemotoObtenido>> futuros = new LinkedHashMap<>();
+        // hilos virtuales: el trabajo es esperar HTTP; el semáforo acota la carga sobre el proxy
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String id : ids) {
+                futuros.put(id, executor.submit(() -> {
+                    try {
+                        cupos.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return RemotoObtenido.error("interrumpido");
+                    }
+                    try {
+                        return obtenerRemoto(id);
+                    } finally {
+                        cupos.release();
+                    }
+                }));
+            }
+        }
+        Map<String, RemotoObtenido> remotos = new HashMap<>();
+        futuros.forEach((id, f) -> remotos.put(id, f.resultNow()));
+        return remotos;
+    }
 
-    @Transactional(readOnly = true)
+    private RemotoObtenido obtenerRemoto(String externalId) {
+        try {
+            EventoProxyDto dto = restClient.get()
+                    .uri("/api/endpoints/v1/evento/{externalId}", externalId)
+                    .retrieve()
+                    .body(EventoProxyDto.class);
+            return new RemotoObtenido(dto, false, null);
+        } catch (HttpClientErrorException.NotFound e) {
+            // el proxy solo responde 404 cuando la cátedra dijo que no lo tiene
+            return new RemotoObtenido(null, true, null);
+        } catch (HttpStatusCodeException e) {
+            // 503 (cátedra caída, circuito abierto, sin cupo) u otro error: no dice nada del evento, se reintenta
+            log.warn("Sincronización por lote: proxy respondió {} para externalId={}", e.getStatusCode(), externalId);
+            return RemotoObtenido.error("HTTP " + e.getStatusCode().value() + " del proxy");
+        } catch (Exception e) {
+            log.warn("Sincronización por lote: error obteniendo externalId={}: {}", externalId, e.toString());
+            return RemotoObtenido.error(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private record RemotoObtenido(EventoProxyDto dto, boolean noEncontrado, String error) {
+        static RemotoObtenido error(String detalle) {
+            return new RemotoObtenido(null, false, detalle);
+        }
+    }
+
+    /**
+     * Mapa de asientos del evento. Sale del {@link MapaAsientosCache}; ante un miss se consulta al proxy
+     * y se marcan los vendidos locales. Sin @Transactional para no retener una conexión durante el HTTP.
+     */
     public List<AsientoDto> obtenerAsientos(String externalEventoId) {
+        return mapaAsientosCache.obtener(externalEventoId, this::cargarAsientos);
+    }
+
+    /**
+     * Mapa de asientos empaquetado (2 bits por asiento) con las dimensiones de la sala del evento local.
+     * Si el evento no está sincronizado, la grilla se ajusta a los asientos ocupados conocidos.
+     */
+    public GrillaAsientos obtenerGrillaAsientos(String externalEventoId) {
+        List<AsientoDto> asientos = obtenerAsientos(externalEventoId);
+        Optional<Evento> evento = eventoRepository.findByExternalId(externalEventoId);
+        return GrillaAsientos.desde(
+                asientos,
+                evento.map(Evento::getFilaAsientos).orElse(null),
+                evento.map(Evento::getColumnAsientos).orElse(null)
+        );
+    }
+
+    private List<AsientoDto> cargarAsientos(String externalEventoId) {
         try {
             AsientoDto[] asientos = restClient.get().uri("/api/endpoints/v1/asientos/{externalEventoId}", externalEventoId).retrieve().body(AsientoDto[].class);
             if (asientos == null) return List.of();
+            // la lista se cachea y se comparte entre requests: se devuelve inmodificable
             List<AsientoDto> lista = new java.util.ArrayList<>(java.util.Arrays.asList(asientos));
             try {
-                var ventas = ventaRepository.findByExternalEventoIdAndEstado(externalEventoId, VentaEstado.CONFIRMADA);
-                java.util.Set<String> vendidos = new java.util.HashSet<>();
-                ventas.forEach(v -> vendidos.addAll(v.getAsientosIds()));
+                // índice asiento_vendido: solo ids, sin cargar ventas ni sus colecciones
+                java.util.Set<String> vendidos = new java.util.HashSet<>(
+                        asientoVendidoRepository.findAsientoIdsByExternalEventoId(externalEventoId));
                 for (int i = 0; i < lista.size(); i++) {
                     if (vendidos.contains(lista.get(i).id())) {
                         AsientoDto a = lista.get(i);
@@ -224,11 +468,12 @@ public class EventoService {
             } catch (Exception e) {
                 log.warn("Error sync: {}", e.getMessage());
             }
-            return lista;
+            return List.copyOf(lista);
         } catch (Exception ex) {
             throw new RuntimeException("Error: " + ex.getMessage(), ex);
         }
     }
+
     public RespuestaBloqueoAsientosDto bloquearAsientosParaSesion(
             SessionState sessionState,
             List<String> asientosIds
@@ -257,6 +502,7 @@ public class EventoService {
                                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
                         RespuestaBloqueoAsientosDto parsed = om.readValue(body, RespuestaBloqueoAsientosDto.class);
                         if (parsed != null) {
+                            invalidarMapaSiHuboBloqueos(sessionState.getExternalEventoId(), parsed);
                             return parsed;
                         }
                     } catch (Exception parseEx) {
@@ -266,6 +512,7 @@ public class EventoService {
                 }
                 // Si llegamos acá es 2xx pero sin body o no parseable.
                 // Asumimos OK para permitir continuar si la cátedra no devuelve detalle.
+                mapaAsientosCache.invalidar(sessionState.getExternalEventoId());
                 return new RespuestaBloqueoAsientosDto(
                         sessionState.getExternalEventoId(),
                         sessionState.getSessionId(),
@@ -304,4 +551,11 @@ public class EventoService {
         }
     }
 
+    private void invalidarMapaSiHuboBloqueos(String externalEventoId, RespuestaBloqueoAsientosDto respuesta) {
+        boolean algunOk = respuesta.resultados() != null && respuesta.resultados().stream()
+                .anyMatch(r -> "OK".equalsIgnoreCase(r.estado()));
+        if (algunOk) {
+            mapaAsientosCache.invalidar(externalEventoId);
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.proxy.dto.EventoProxyDto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Huella (SHA-256 en hex) de los campos de un evento remoto que impactan en el evento local.
+ * Dos DTOs con los mismos datos producen la misma huella aunque el precio venga con otra escala.
+ */
+final class HuellaEvento {
+
+    private static final char SEPARADOR = '\u001F';
+
+    private HuellaEvento() {
+    }
+
+    static String de(EventoProxyDto dto) {
+        StringBuilder sb = new StringBuilder(256);
+        agregar(sb, dto.getId());
+        agregar(sb, dto.getNombre());
+        agregar(sb, dto.getDescripcion());
+        agregar(sb, dto.getResumen());
+        agregar(sb, dto.getFechaHora());
+        agregar(sb, dto.getCupo());
+        agregar(sb, precioNormalizado(dto.getPrecio()));
+        agregar(sb, dto.getFilaAsientos());
+        agregar(sb, dto.getColumnAsientos());
+        return sha256(sb.toString());
+    }
+
+    private static void agregar(StringBuilder sb, Object valor) {
+        // "\0" distingue null de cadena vacía
+        sb.append(valor == null ? "\0" : valor.toString()).append(SEPARADOR);
+    }
+
+    private static String precioNormalizado(BigDecimal precio) {
+        return precio == null ? null : precio.stripTrailingZeros().toPlainString();
+    }
+
+    private static String sha256(String texto) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
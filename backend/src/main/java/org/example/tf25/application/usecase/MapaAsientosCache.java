@@ -0,0 +1,89 @@
+package org.example.tf25.application.usecase;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.tf25.application.dto.AsientoDto;
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Cache por evento del mapa de asientos (proxy + vendidos locales).
+ * <ul>
+ *   <li>TTL corto: en una salida a la venta cientos de clientes consultan el mismo evento.</li>
+ *   <li>Carga single-flight: los misses concurrentes de un mismo evento esperan una única llamada al proxy.
+ *       El cache guarda futures y la llamada corre fuera del compute de Caffeine: un proxy lento no
+ *       traba otras claves del mismo bin ni fija el carrier de un hilo virtual.</li>
+ *   <li>Se invalida al confirmar una venta (después del commit), al bloquear asientos y cuando el proxy
+ *       notifica un cambio del evento.</li>
+ * </ul>
+ */
+@Component
+public class MapaAsientosCache {
+    private static final Logger log = LoggerFactory.getLogger(MapaAsientosCache.class);
+
+    private final AsyncCache<String, List<AsientoDto>> mapas;
+
+    public MapaAsientosCache(MeterRegistry meterRegistry,
+                             @Value("${tf25.asientos.cache.ttl:2s}") Duration ttl,
+                             @Value("${tf25.asientos.cache.max-size:1000}") long maxSize) {
+        this.mapas = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, mapas, "tf25.mapa-asientos");
+    }
+
+    /**
+     * Devuelve el mapa cacheado o lo carga con {@code cargador}. Si varios hilos piden el mismo evento
+     * sin entrada en cache, solo uno ejecuta el cargador y el resto recibe su resultado.
+     * Si el cargador falla no se cachea nada y la excepción llega a quien esperaba.
+     */
+    public List<AsientoDto> obtener(String externalEventoId, Function<String, List<AsientoDto>> cargador) {
+        // el compute solo inserta el future (instantáneo); quien lo insertó hace la carga en su propio hilo
+        CompletableFuture<List<AsientoDto>> propia = new CompletableFuture<>();
+        CompletableFuture<List<AsientoDto>> enCache = mapas.get(externalEventoId, (id, executor) -> propia);
+        if (enCache == propia) {
+            try {
+                propia.complete(cargador.apply(externalEventoId));
+            } catch (RuntimeException | Error ex) {
+                // un future fallido sale solo del cache
+                propia.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        try {
+            return enCache.join();
+        } catch (CompletionException ex) {
+            // misma excepción que vio el hilo que hizo la carga
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw ex;
+        }
+    }
+
+    public void invalidar(String externalEventoId) {
+        if (externalEventoId == null) return;
+        mapas.synchronous().invalidate(externalEventoId);
+        log.debug("Mapa de asientos invalidado para evento {}", externalEventoId);
+    }
+
+    // fallbackExecution: el retry job confirma sin transacción declarativa
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmarVenta(VentaConfirmadaEvent evento) {
+        invalidar(evento.externalEventoId());
+    }
+}
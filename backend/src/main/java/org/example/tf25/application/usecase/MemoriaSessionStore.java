@@ -0,0 +1,74 @@
+package org.example.tf25.application.usecase;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.tf25.application.dto.SessionState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sesiones en la memoria de la JVM (una sola réplica del backend).
+ * Cada sesión expira tras "ttl" sin accesos y, si se supera "maxSize", se desalojan las menos usadas.
+ */
+@Component
+@ConditionalOnProperty(name = "tf25.session.store", havingValue = "memoria", matchIfMissing = true)
+public class MemoriaSessionStore implements SessionStore {
+    private static final Logger log = LoggerFactory.getLogger(MemoriaSessionStore.class);
+
+    static final String CACHE_NAME = "tf25.sesiones";
+
+    private final Cache<String, SessionState> sessions;
+
+    @Autowired
+    public MemoriaSessionStore(MeterRegistry meterRegistry,
+                               @Value("${tf25.session.max-size:100000}") long maxSize,
+                               @Value("${tf25.session.ttl:5m}") Duration ttl) {
+        this(meterRegistry, maxSize, ttl, Ticker.systemTicker());
+    }
+
+    MemoriaSessionStore(MeterRegistry meterRegistry, long maxSize, Duration ttl, Ticker ticker) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .ticker(ticker)
+                // expira en segundo plano, sin depender de que haya lecturas/escrituras
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+
+        // hits/misses/evictions del cache + cantidad de sesiones vivas
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, CACHE_NAME);
+        Gauge.builder("tf25.sesiones.activas", sessions, Cache::estimatedSize)
+                .description("Sesiones de compra vivas en memoria")
+                .register(meterRegistry);
+
+        log.info("MemoriaSessionStore: maxSize={}, ttl={}", maxSize, ttl);
+    }
+
+    @Override
+    public Optional<SessionState> obtener(String sessionId) {
+        return Optional.ofNullable(sessions.getIfPresent(sessionId));
+    }
+
+    @Override
+    public void guardar(SessionState state) {
+        sessions.put(state.getSessionId(), state);
+    }
+
+    @Override
+    public void eliminar(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+}
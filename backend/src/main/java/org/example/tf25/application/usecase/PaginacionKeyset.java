@@ -0,0 +1,98 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.Pagina;
+import org.example.tf25.domain.model.Evento;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Paginación keyset de los listados: en vez de OFFSET, cada página arranca después de la clave de orden
+ * del último elemento de la anterior (el costo no crece con la página y no se saltean/repiten filas si
+ * entran ventas nuevas). El cursor es esa clave en base64url; para el cliente es opaco y uno adulterado
+ * o de otro listado se rechaza con 400.
+ */
+final class PaginacionKeyset {
+
+    private static final char SEPARADOR = '|';
+
+    private PaginacionKeyset() {
+    }
+
+    /**
+     * Sin cursor ni limit se devuelve el listado completo, como antes de paginar: los clientes que no
+     * conocen X-Next-Cursor (la app móvil) siguen viendo todo. Con cualquiera de los dos, se pagina.
+     */
+    static boolean sinPaginar(String cursor, Integer limite) {
+        return (cursor == null || cursor.isBlank()) && limite == null;
+    }
+
+    /** Tamaño de página efectivo: el pedido acotado a [1, max], o el default si no vino. */
+    static int tamanio(Integer pedido, int porDefecto, int max) {
+        int t = (pedido == null) ? porDefecto : pedido;
+        return Math.max(1, Math.min(t, max));
+    }
+
+    /**
+     * Arma la página a partir de una consulta hecha con límite {@code tamanio + 1}: la fila extra solo
+     * indica que hay más, y el cursor sale del último elemento devuelto.
+     */
+    static <T> Pagina<T> pagina(List<T> filas, int tamanio, Function<T, String> cursorDe) {
+        if (filas.size() <= tamanio) {
+            return new Pagina<>(filas, null);
+        }
+        List<T> items = filas.subList(0, tamanio);
+        return new Pagina<>(List.copyOf(items), cursorDe.apply(items.get(tamanio - 1)));
+    }
+
+    /** Clave de orden de las ventas: (createdAt, id). */
+    record ClaveVenta(Instant createdAt, long id) {
+    }
+
+    static String deVenta(Instant createdAt, Long id) {
+        return codificar("v" + SEPARADOR + createdAt + SEPARADOR + id);
+    }
+
+    static ClaveVenta leerVenta(String cursor) {
+        String[] partes = decodificar(cursor).split("\\|", -1);
+        if (partes.length != 3 || !partes[0].equals("v")) throw invalido();
+        try {
+            return new ClaveVenta(Instant.parse(partes[1]), Long.parseLong(partes[2]));
+        } catch (RuntimeException e) {
+            throw invalido();
+        }
+    }
+
+    static String deEvento(Evento e) {
+        return codificar("e" + SEPARADOR + e.getId());
+    }
+
+    static long leerEvento(String cursor) {
+        String[] partes = decodificar(cursor).split("\\|", -1);
+        if (partes.length != 2 || !partes[0].equals("e")) throw invalido();
+        try {
+            return Long.parseLong(partes[1]);
+        } catch (NumberFormatException e) {
+            throw invalido();
+        }
+    }
+
+    private static String codificar(String clave) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(clave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificar(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalido();
+        }
+    }
+
+    private static IllegalArgumentException invalido() {
+        return new IllegalArgumentException("Cursor de paginación inválido");
+    }
+}
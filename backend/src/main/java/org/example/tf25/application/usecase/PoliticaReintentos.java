@@ -0,0 +1,150 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Política de reintentos de notificación de ventas.
+ * <ul>
+ *   <li>Backoff exponencial con jitter completo: la espera del intento n es uniforme en
+ *       [0, min(max, base * 2^(n-1))], así las ventas pendientes no reintentan todas juntas cuando
+ *       la cátedra vuelve.</li>
+ *   <li>Fallos permanentes (datos de la venta que nunca van a ser aceptados) pasan directo a ERROR;
+ *       los transitorios siguen reintentando hasta agotar max-intentos.</li>
+ * </ul>
+ */
+@Component
+public class PoliticaReintentos {
+    private static final Logger log = LoggerFactory.getLogger(PoliticaReintentos.class);
+
+    /** 4xx que indican un problema momentáneo (token, rate limit, timeout) y no de la venta. */
+    private static final Set<Integer> HTTP_4XX_TRANSITORIOS = Set.of(401, 403, 408, 425, 429);
+
+    /** Prefijos de ultimoError (SimpleName de la excepción) que corresponden a fallos permanentes. */
+    private static final Set<String> ERRORES_PERMANENTES = Set.of(
+            "IllegalArgumentException",
+            "NumberFormatException",
+            "SerializationException",
+            "RecordTooLargeException",
+            "InvalidTopicException"
+    );
+
+    /** Margen sobre delivery.timeout.ms para que el future del producer siempre complete antes. */
+    private static final long MARGEN_ENTREGA_MS = 5000;
+
+    private final Duration base;
+    private final Duration max;
+    private final int maxIntentos;
+    private final Clock clock;
+    private final DoubleSupplier aleatorio;
+
+    @Autowired
+    public PoliticaReintentos(@Value("${tf25.retry.backoff.base:10s}") Duration base,
+                              @Value("${tf25.retry.backoff.max:10m}") Duration max,
+                              @Value("${tf25.retry.max-intentos:10}") int maxIntentos) {
+        this(base, max, maxIntentos, Clock.systemUTC(), () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    PoliticaReintentos(Duration base, Duration max, int maxIntentos, Clock clock, DoubleSupplier aleatorio) {
+        this.base = base;
+        this.max = max;
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.clock = clock;
+        this.aleatorio = aleatorio;
+    }
+
+    /**
+     * Registra el fallo del intento actual (venta.intentosNotificacion ya incrementado):
+     * deja la venta PENDIENTE con su próximo reintento o la pasa a ERROR.
+     */
+    public void aplicarFallo(Venta venta, Throwable ex) {
+        Throwable causa = causaRaiz(ex);
+        venta.setUltimoError(causa.getClass().getSimpleName() + ": " + (causa.getMessage() == null ? "" : causa.getMessage()));
+
+        if (esPermanente(causa)) {
+            venta.setEstado(VentaEstado.ERROR);
+            venta.setNextRetryAt(null);
+            log.error("Venta {}: fallo permanente ({}), pasa a ERROR sin reintentar", venta.getId(), venta.getUltimoError());
+        } else if (venta.getIntentosNotificacion() >= maxIntentos) {
+            venta.setEstado(VentaEstado.ERROR);
+            venta.setNextRetryAt(null);
+            log.error("Venta {}: falló notificación (intento {}) y pasó a ERROR", venta.getId(), venta.getIntentosNotificacion());
+        } else {
+            venta.setEstado(VentaEstado.PENDIENTE);
+            venta.setNextRetryAt(proximoIntento(venta.getIntentosNotificacion()));
+            log.warn("Venta {}: falló notificación (intento {}), queda PENDIENTE hasta {}",
+                    venta.getId(), venta.getIntentosNotificacion(), venta.getNextRetryAt());
+        }
+    }
+
+    /** Momento del próximo reintento tras fallar el intento número {@code intento} (1 = el primero). */
+    public Instant proximoIntento(int intento) {
+        return Instant.now(clock).plus(espera(intento));
+    }
+
+    Duration espera(int intento) {
+        // tope del exponente para no desbordar: 2^30 * base ya supera cualquier max razonable
+        int exponente = Math.min(Math.max(intento, 1) - 1, 30);
+        long techoMs = Math.min(max.toMillis(), base.toMillis() << exponente);
+        if (techoMs <= 0) techoMs = max.toMillis();
+        return Duration.ofMillis((long) (aleatorio.getAsDouble() * techoMs));
+    }
+
+    /**
+     * Espera máxima de un envío a Kafka. Nunca menor que delivery.timeout.ms del producer (más un margen):
+     * si se abandonara antes, un envío que el producer todavía reintenta y termina entregando se
+     * reintentaría de nuevo y la venta llegaría duplicada.
+     */
+    public static Duration timeoutEnvio(Duration configurado, long deliveryTimeoutMs) {
+        Duration minimo = Duration.ofMillis(deliveryTimeoutMs + Math.min(MARGEN_ENTREGA_MS, deliveryTimeoutMs));
+        if (configurado.compareTo(minimo) >= 0) return configurado;
+        if (!configurado.isZero()) {
+            log.warn("tf25.retry.send-timeout ({}) es menor que delivery.timeout.ms del producer ({} ms): se usa {}",
+                    configurado, deliveryTimeoutMs, minimo);
+        }
+        return minimo;
+    }
+
+    public boolean esPermanente(Throwable ex) {
+        Throwable causa = causaRaiz(ex);
+        if (causa instanceof RestClientResponseException http) {
+            int status = http.getStatusCode().value();
+            return status >= 400 && status < 500 && !HTTP_4XX_TRANSITORIOS.contains(status);
+        }
+        return ERRORES_PERMANENTES.contains(causa.getClass().getSimpleName());
+    }
+
+    /** Clasifica un ultimoError ya persistido ("SimpleName: mensaje"). */
+    public boolean esPermanente(String ultimoError) {
+        if (ultimoError == null || ultimoError.isBlank()) return false;
+        int fin = ultimoError.indexOf(':');
+        String tipo = (fin < 0 ? ultimoError : ultimoError.substring(0, fin)).trim();
+        return ERRORES_PERMANENTES.contains(tipo);
+    }
+
+    private static Throwable causaRaiz(Throwable ex) {
+        Throwable t = ex;
+        // desenvuelve los wrappers de futures y de Kafka (KafkaException / KafkaProducerException)
+        while ((t instanceof CompletionException || t instanceof ExecutionException
+                || t.getClass().getName().startsWith("org.springframework.kafka."))
+                && t.getCause() != null && t.getCause() != t) {
+            t = t.getCause();
+        }
+        return t;
+    }
+}
@@ -1,24 +1,25 @@
 package org.example.tf25.application.usecase;
 
-import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.example.tf25.application.dto.PasoFlujoCompra;
 import org.example.tf25.application.dto.SessionState;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class SessionService {
     private static final Logger log = LoggerFactory.getLogger(SessionService.class);
 
-    // Simulación de almacenamiento en memoria al no usar Redis en el backend
-    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // En memoria (una réplica) o en Redis (varias réplicas sin sticky sessions), según tf25.session.store
+    private final SessionStore store;
+
+    public SessionService(SessionStore store) {
+        this.store = store;
+    }
 
     public SessionState crearNuevaSesionParaEvento(String userId, String externalEventoId) {
         String sessionId = UUID.randomUUID().toString();
@@ -30,8 +31,8 @@ public class SessionService {
                 PasoFlujoCompra.MAPA_ASIENTOS // o SELECCION_EVENTO según cómo prefieras
         );
 
-        sessions.put(sessionId, state);
-        log.info("Creada nueva sesión {} (en memoria) para evento {}", sessionId, externalEventoId);
+        store.guardar(state);
+        log.info("Creada nueva sesión {} para evento {}", sessionId, externalEventoId);
         return state;
     }
 
@@ -39,19 +40,30 @@ public class SessionService {
         if (sessionId == null || sessionId.isBlank()) {
             return Optional.empty();
         }
-        return Optional.ofNullable(sessions.get(sessionId));
+        return store.obtener(sessionId);
+    }
+
+    /**
+     * Variante para lecturas de solo consulta (ej. mapa de asientos): puede responder desde el
+     * near-cache del store y evitar el round-trip a Redis. No usar para confirmar ventas.
+     */
+    public Optional<SessionState> obtenerSesionCacheada(String sessionId) {
+        if (sessionId == null || sessionId.isBlank()) {
+            return Optional.empty();
+        }
+        return store.obtenerCacheada(sessionId);
     }
 
     public SessionState guardarSesion(SessionState state) {
         if (state.getSessionId() == null) {
             throw new IllegalArgumentException("SessionId no puede ser null al guardar sesión");
         }
-        sessions.put(state.getSessionId(), state);
+        store.guardar(state);
         return state;
     }
 
     public void eliminarSesion(String sessionId) {
         if (sessionId == null) return;
-        sessions.remove(sessionId);
+        store.eliminar(sessionId);
     }
 }
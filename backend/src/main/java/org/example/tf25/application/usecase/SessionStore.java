@@ -0,0 +1,27 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.SessionState;
+
+import java.util.Optional;
+
+/**
+ * Almacenamiento de sesiones de compra detrás de {@link SessionService}.
+ * La implementación se elige con {@code tf25.session.store} (memoria | redis).
+ */
+public interface SessionStore {
+
+    /** Lee la sesión y renueva su TTL. Siempre devuelve el último estado guardado. */
+    Optional<SessionState> obtener(String sessionId);
+
+    /**
+     * Igual que {@link #obtener(String)} pero puede responder desde un cache local de corta vida,
+     * por lo que el estado puede estar levemente desactualizado. Solo para lecturas que no deciden nada.
+     */
+    default Optional<SessionState> obtenerCacheada(String sessionId) {
+        return obtener(sessionId);
+    }
+
+    void guardar(SessionState state);
+
+    void eliminar(String sessionId);
+}
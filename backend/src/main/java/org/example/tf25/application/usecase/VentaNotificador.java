@@ -0,0 +1,139 @@
+package org.example.tf25.application.usecase;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.repository.VentaRepository;
+import org.example.tf25.infrastructure.messaging.VentaKafkaProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifica una venta PENDIENTE a la cátedra (HTTP vía proxy y, si no confirma, Kafka) y deja
+ * el resultado en la venta: CONFIRMADA, PENDIENTE con nextRetryAt (la toma VentaRetryJob) o ERROR,
+ * según {@link PoliticaReintentos}.
+ * No es transaccional a propósito: la llamada remota no debe retener una conexión JDBC.
+ * Ambas llamadas están acotadas: la HTTP por el read-timeout del cliente y la espera del envío
+ * a Kafka por delivery.timeout.ms del producer (ver {@link PoliticaReintentos#timeoutEnvio}); un timeout
+ * cuenta como fallo transitorio.
+ */
+@Service
+public class VentaNotificador {
+    private static final Logger log = LoggerFactory.getLogger(VentaNotificador.class);
+
+    private final VentaRepository ventaRepository;
+    private final RestClient proxyRestClient;
+    private final VentaKafkaProducer ventaKafkaProducer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PoliticaReintentos politicaReintentos;
+    private final Duration timeoutEnvio;
+
+    public VentaNotificador(VentaRepository ventaRepository,
+                            RestClient restClient,
+                            VentaKafkaProducer ventaKafkaProducer,
+                            ApplicationEventPublisher eventPublisher,
+                            PoliticaReintentos politicaReintentos,
+                            @Value("${tf25.retry.send-timeout:0s}") Duration timeoutEnvio,
+                            @Value("${tf25.kafka.producer.delivery-timeout-ms:120000}") long deliveryTimeoutMs) {
+        this.ventaRepository = ventaRepository;
+        this.proxyRestClient = restClient;
+        this.ventaKafkaProducer = ventaKafkaProducer;
+        this.eventPublisher = eventPublisher;
+        this.politicaReintentos = politicaReintentos;
+        this.timeoutEnvio = PoliticaReintentos.timeoutEnvio(timeoutEnvio, deliveryTimeoutMs);
+    }
+
+    public Venta notificar(Venta venta) {
+        String externalEventoId = venta.getExternalEventoId();
+        String sessionId = venta.getSessionId();
+
+        // Intentamos primero vía HTTP Proxy para que Catedra
+        // asocie la venta al usuario logueado (vía Token JWT que se propaga).
+        int intento = venta.getIntentosNotificacion() + 1;
+        venta.setIntentosNotificacion(intento);
+        try {
+            log.info("Venta {}: notificando a cátedra vía HTTP Proxy (intento {})...", venta.getId(), intento);
+
+            var payload = JsonNodeFactory.instance.objectNode()
+                    .put("ventaId", venta.getId())
+                    .put("externalEventoId", externalEventoId)
+                    .put("sessionId", sessionId)
+                    .put("compradorEmail", venta.getCompradorEmail() != null ? venta.getCompradorEmail() : "");
+
+            var seatsArr = JsonNodeFactory.instance.arrayNode();
+            venta.getAsientosIds().forEach(seatsArr::add);
+            payload.set("asientosIds", seatsArr);
+
+            // Campos adicionales para compatibilidad con cátedra (formato dino):
+            // fecha ISO y precio total (double) para evitar problemas de serialización
+            payload.put("fecha", OffsetDateTime.now().toString());
+            if (venta.getTotal() != null) {
+                payload.put("precioVenta", venta.getTotal().doubleValue());
+            }
+            if (venta.getNombresOcupantes() != null && !venta.getNombresOcupantes().isEmpty()) {
+                var ocupArr = JsonNodeFactory.instance.arrayNode();
+                venta.getNombresOcupantes().forEach(ocupArr::add);
+                payload.set("nombresOcupantes", ocupArr);
+            }
+
+            JsonNode resp = proxyRestClient.post()
+                    .uri("/api/endpoints/v1/realizar-venta")
+                    .header("X-Session-Id", sessionId)
+                    .body(payload)
+                    .retrieve()
+                    .body(JsonNode.class);
+
+            if (resp != null && resp.has("resultado") && resp.get("resultado").asBoolean()) {
+                log.info("Venta {}: confirmada exitosamente vía HTTP Proxy", venta.getId());
+                return confirmar(venta);
+            }
+
+            log.warn("Venta {}: HTTP Proxy no confirmó (resp={}), intentando Kafka como fallback...", venta.getId(), resp);
+            ventaKafkaProducer.enviarNotificacionVenta(venta)
+                    .orTimeout(timeoutEnvio.toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+
+            log.info("Venta {}: confirmada vía Kafka (fallback)", venta.getId());
+            return confirmar(venta);
+
+        } catch (Exception ex) {
+            politicaReintentos.aplicarFallo(venta, ex);
+            return guardar(venta);
+        }
+    }
+
+    /**
+     * Guarda el resultado del intento. Si la venta cambió mientras se notificaba (p.ej. el usuario
+     * re-confirmó con otro email), el resultado se aplica sobre la versión actual en vez de pisarla.
+     */
+    private Venta guardar(Venta venta) {
+        try {
+            return ventaRepository.save(venta);
+        } catch (OptimisticLockingFailureException ex) {
+            Venta actual = ventaRepository.findById(venta.getId()).orElseThrow(() -> ex);
+            log.warn("Venta {}: cambió durante la notificación, se aplica el resultado sobre la versión actual", venta.getId());
+            actual.copiarResultadoNotificacion(venta);
+            return ventaRepository.save(actual);
+        }
+    }
+
+    private Venta confirmar(Venta venta) {
+        venta.setEstado(VentaEstado.CONFIRMADA);
+        venta.setUltimoError(null);
+        venta.setNextRetryAt(null);
+        Venta guardada = guardar(venta);
+        eventPublisher.publishEvent(new VentaConfirmadaEvent(guardada.getId(), guardada.getExternalEventoId(), guardada.getAsientosIds()));
+        return guardada;
+    }
+}
@@ -7,25 +7,33 @@ import org.example.tf25.domain.model.Evento;
 import org.example.tf25.domain.model.Venta;
 import org.example.tf25.domain.repository.EventoRepository;
 import org.example.tf25.domain.repository.VentaRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.util.Optional;
 import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.model.VentaOutbox;
+import org.example.tf25.domain.repository.VentaOutboxRepository;
+import org.example.tf25.application.dto.Pagina;
 import org.example.tf25.application.dto.SessionState;
 import org.example.tf25.application.dto.VentaDto;
-import org.example.tf25.infrastructure.messaging.VentaKafkaProducer;
+import org.example.tf25.application.dto.VentaEncoladaEvent;
+import org.example.tf25.application.dto.VentaPendienteDto;
+import org.example.tf25.infrastructure.persistence.VentaConsultas;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.web.client.RestClient;
-import java.time.Duration;
-import java.time.OffsetDateTime;
-import java.time.Instant;
+import org.springframework.context.ApplicationEventPublisher;
 import java.util.HashSet;
 
 @Service
@@ -36,24 +44,33 @@ public class VentaService {
     private final VentaRepository ventaRepository;
     private final EventoRepository eventoRepository;
     private final SessionService sessionService;
-    private final RestClient proxyRestClient;
-    private final VentaKafkaProducer ventaKafkaProducer;
+    private final VentaOutboxRepository ventaOutboxRepository;
+    private final VentaConsultas ventaConsultas;
+    private final ApplicationEventPublisher eventPublisher;
     private final boolean exigirBloqueosEnConfirmacion;
+    private final int tamanioPagina;
+    private final int tamanioPaginaMax;
 
-    private static final int MAX_REINTENTOS = 10;
+    private static final Sort ORDEN_VENTAS = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
 
     public VentaService(VentaRepository ventaRepository,
                     EventoRepository eventoRepository,
                     SessionService sessionService,
-                    RestClient restClient,
-                    VentaKafkaProducer ventaKafkaProducer,
-                    @Value("${tf25.venta.exigir-bloqueos:false}") boolean exigirBloqueosEnConfirmacion) {
+                    VentaOutboxRepository ventaOutboxRepository,
+                    VentaConsultas ventaConsultas,
+                    ApplicationEventPublisher eventPublisher,
+                    @Value("${tf25.venta.exigir-bloqueos:false}") boolean exigirBloqueosEnConfirmacion,
+                    @Value("${tf25.paginacion.tamanio:100}") int tamanioPagina,
+                    @Value("${tf25.paginacion.tamanio-max:500}") int tamanioPaginaMax) {
         this.ventaRepository = ventaRepository;
         this.eventoRepository = eventoRepository;
         this.sessionService = sessionService;
-        this.proxyRestClient = restClient;
-        this.ventaKafkaProducer = ventaKafkaProducer;
+        this.ventaOutboxRepository = ventaOutboxRepository;
+        this.ventaConsultas = ventaConsultas;
+        this.eventPublisher = eventPublisher;
         this.exigirBloqueosEnConfirmacion = exigirBloqueosEnConfirmacion;
+        this.tamanioPagina = tamanioPagina;
+        this.tamanioPaginaMax = tamanioPaginaMax;
     }
 
     public Venta crearVenta(Long eventoId, String compradorEmail, int cantidad) {
@@ -84,32 +101,55 @@ public class VentaService {
         return ventaRepository.save(v);
     }
 
+    /**
+     * Listado keyset de ventas, de la más nueva a la más vieja por (createdAt, id). Los filtros son opcionales
+     * y se combinan; {@code desde} es inclusivo y {@code hasta} exclusivo. {@code cursor} es el
+     * {@link Pagina#siguienteCursor()} de la página anterior, pedida con los mismos filtros.
+     */
     @Transactional(readOnly = true)
-    public List<VentaDto> listarPorEvento(Long eventoId) {
-        List<Venta> ventas = (eventoId != null)
-                ? ventaRepository.findByEvento_Id(eventoId)
-                : ventaRepository.findAll();
+    public Pagina<VentaDto> listarPagina(Long eventoId, String email, VentaEstado estado,
+                                      Instant desde, Instant hasta, String cursor, Integer limite) {
+        PaginacionKeyset.ClaveVenta despuesDe = (cursor == null || cursor.isBlank())
+                ? null
+                : PaginacionKeyset.leerVenta(cursor);
+
+        Specification<Venta> spec = (root, query, cb) -> {
+            Path<Instant> createdAt = root.get("createdAt");
+            List<Predicate> condiciones = new ArrayList<>();
+            if (eventoId != null) condiciones.add(cb.equal(root.get("evento").get("id"), eventoId));
+            if (email != null && !email.isBlank()) {
+                condiciones.add(cb.equal(cb.lower(root.get("compradorEmail")), email.trim().toLowerCase(Locale.ROOT)));
+            }
+            if (estado != null) condiciones.add(cb.equal(root.get("estado"), estado));
+            if (desde != null) condiciones.add(cb.greaterThanOrEqualTo(createdAt, desde));
+            if (hasta != null) condiciones.add(cb.lessThan(createdAt, hasta));
+            if (despuesDe != null) {
+                // (createdAt, id) < cursor; el "createdAt <= c" suelto le da al planner el rango sobre el índice
+                condiciones.add(cb.lessThanOrEqualTo(createdAt, despuesDe.createdAt()));
+                condiciones.add(cb.or(
+                        cb.lessThan(createdAt, despuesDe.createdAt()),
+                        cb.lessThan(root.get("id"), despuesDe.id())));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
 
-        return ventas.stream()
-                .map(VentaDto::from)
-                .toList();
+        if (PaginacionKeyset.sinPaginar(cursor, limite)) {
+            return new Pagina<>(ventaConsultas.listar(spec, ORDEN_VENTAS), null);
+        }
+        int tamanio = PaginacionKeyset.tamanio(limite, tamanioPagina, tamanioPaginaMax);
+        List<VentaDto> filas = ventaConsultas.listar(spec, ORDEN_VENTAS, tamanio + 1);
+        return PaginacionKeyset.pagina(filas, tamanio, v -> PaginacionKeyset.deVenta(v.createdAt(), v.id()));
     }
 
     @Transactional(readOnly = true)
-    public List<Venta> listarEntidades(Long eventoId, String email) {
-        if (email != null && !email.isBlank()) {
-            return ventaRepository.findByCompradorEmailIgnoreCase(email);
-        }
-        return (eventoId != null)
-                ? ventaRepository.findByEvento_Id(eventoId)
-                : ventaRepository.findAll();
+    public Optional<Venta> obtenerVenta(Long id) {
+        return ventaRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
-    public List<Venta> listarPendientes(int limit) {
+    public List<VentaPendienteDto> listarPendientes(int limit) {
         int lim = Math.max(1, Math.min(limit, 100));
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, lim);
-        return ventaRepository.findByEstadoOrderByNextRetryAtAsc(VentaEstado.PENDIENTE, pageable);
+        return ventaConsultas.listarPorEstado(VentaEstado.PENDIENTE, lim);
     }
 
     public Venta confirmarVentaDesdeSesion(String sessionId, String compradorEmail, List<String> nombresOcupantes) {
@@ -147,9 +187,16 @@ public class VentaService {
             return existenteOpt.get();
         }
 
+        // 2) Si VentaRetryJob la tiene reclamada, la está reenviando ahora: no se toca ni se vuelve a
+        //    encolar (el resultado del reenvío queda en la venta y el cliente lo consulta por estado)
+        if (existenteOpt.isPresent() && existenteOpt.get().estaReclamada(Instant.now())) {
+            log.info("Venta {}: reintento en curso, la confirmación no la vuelve a encolar", existenteOpt.get().getId());
+            return existenteOpt.get();
+        }
+
         Venta venta = existenteOpt.orElseGet(Venta::new);
 
-        // 2) Si existe y está PENDIENTE, NO reescribimos asientos/cantidad/total; solo email si viene nuevo.
+        // 3) Si existe y está PENDIENTE, NO reescribimos asientos/cantidad/total; solo email si viene nuevo.
         //    Si es nueva, seteamos todos los campos.
         if (venta.getId() != null) {
             if (compradorEmail != null && !compradorEmail.isBlank()) {
@@ -176,90 +223,22 @@ public class VentaService {
             venta.setIntentosNotificacion(0);
         }
 
-        // 1) Persistir local SIEMPRE (crear o actualizar)
-        venta = ventaRepository.save(venta);
-
-        // 2) Si ya estaba CONFIRMADA (raro), devolverla tal cual
-        if (venta.getEstado() == VentaEstado.CONFIRMADA) {
-            return venta;
+        // 4) Persistir la venta PENDIENTE y encolar su notificación en la misma transacción (corta).
+        //    La llamada a la cátedra la hace VentaOutboxDispatcher después del commit; el cliente
+        //    consulta el estado final con GET /api/ventas/{id}/estado.
+        if (venta.getEstado() != VentaEstado.PENDIENTE) {
+            // ERROR: una nueva confirmación del usuario vuelve a intentar
+            venta.setEstado(VentaEstado.PENDIENTE);
         }
+        // mientras esté en el outbox no la toma VentaRetryJob
+        venta.setNextRetryAt(null);
+        venta = ventaRepository.save(venta);
 
-        // 3) Notificar a cátedra. Intentamos primero vía HTTP Proxy para que Catedra 
-        // asocie la venta al usuario logueado (vía Token JWT que se propaga).
-        int intento = venta.getIntentosNotificacion() + 1;
-        venta.setIntentosNotificacion(intento);
-        try {
-            log.info("Venta {}: notificando a cátedra vía HTTP Proxy (intento {})...", venta.getId(), intento);
-            
-            var payload = JsonNodeFactory.instance.objectNode()
-                    .put("ventaId", venta.getId())
-                    .put("externalEventoId", externalEventoId)
-                    .put("sessionId", sessionId)
-                    .put("compradorEmail", venta.getCompradorEmail() != null ? venta.getCompradorEmail() : "");
-            
-            var seatsArr = JsonNodeFactory.instance.arrayNode();
-            venta.getAsientosIds().forEach(seatsArr::add);
-            payload.set("asientosIds", seatsArr);
-
-            // Campos adicionales para compatibilidad con cátedra (formato dino)
-            try {
-                if (venta.getNombresOcupantes() != null && !venta.getNombresOcupantes().isEmpty()) {
-                    var ocupArr = JsonNodeFactory.instance.arrayNode();
-                    venta.getNombresOcupantes().forEach(ocupArr::add);
-                    payload.set("nombresOcupantes", ocupArr);
-                }
-            } catch (Exception ignored) {}
-
-            // Fecha ISO y precio total (double) para evitar problemas de serialización
-            payload.put("fecha", OffsetDateTime.now().toString());
-            if (venta.getTotal() != null) {
-                payload.put("precioVenta", venta.getTotal().doubleValue());
-            }
-            if (venta.getNombresOcupantes() != null && !venta.getNombresOcupantes().isEmpty()) {
-                var ocupArr = JsonNodeFactory.instance.arrayNode();
-                venta.getNombresOcupantes().forEach(ocupArr::add);
-                payload.set("nombresOcupantes", ocupArr);
-            }
-
-            JsonNode resp = proxyRestClient.post()
-                    .uri("/api/endpoints/v1/realizar-venta")
-                    .header("X-Session-Id", sessionId)
-                    .body(payload)
-                    .retrieve()
-                    .body(JsonNode.class);
-
-            if (resp != null && resp.has("resultado") && resp.get("resultado").asBoolean()) {
-                venta.setEstado(VentaEstado.CONFIRMADA);
-                venta.setUltimoError(null);
-                venta.setNextRetryAt(null);
-                log.info("Venta {}: confirmada exitosamente vía HTTP Proxy", venta.getId());
-                return ventaRepository.save(venta);
-            }
-            
-            log.warn("Venta {}: HTTP Proxy no confirmó (resp={}), intentando Kafka como fallback...", venta.getId(), resp);
-            ventaKafkaProducer.enviarNotificacionVenta(venta).join();
-
-            venta.setEstado(VentaEstado.CONFIRMADA);
-            venta.setUltimoError(null);
-            venta.setNextRetryAt(null);
-            log.info("Venta {}: confirmada vía Kafka (fallback)", venta.getId());
-            return ventaRepository.save(venta);
-
-        } catch (Exception ex) {
-            Throwable cause = (ex instanceof java.util.concurrent.CompletionException) ? ex.getCause() : ex;
-            if (cause == null) cause = ex;
-            venta.setUltimoError(cause.getClass().getSimpleName() + ": " + (cause.getMessage() == null ? "" : cause.getMessage()));
-
-            if (venta.getIntentosNotificacion() >= MAX_REINTENTOS) {
-                venta.setEstado(VentaEstado.ERROR);
-                venta.setNextRetryAt(null);
-                log.error("Venta {}: falló notificación (intento {}) y pasó a ERROR", venta.getId() != null ? venta.getId() : "NUEVA", venta.getIntentosNotificacion());
-            } else {
-                venta.setEstado(VentaEstado.PENDIENTE);
-                venta.setNextRetryAt(Instant.now().plus(Duration.ofSeconds(30)));
-                log.warn("Venta {}: falló notificación (intento {}), queda PENDIENTE para reintento", venta.getId() != null ? venta.getId() : "NUEVA", venta.getIntentosNotificacion());
-            }
-            return ventaRepository.save(venta);
+        if (!ventaOutboxRepository.existsByVentaIdAndProcesadoAtIsNull(venta.getId())) {
+            ventaOutboxRepository.save(new VentaOutbox(venta.getId()));
         }
+        eventPublisher.publishEvent(new VentaEncoladaEvent(venta.getId()));
+        log.info("Venta {}: registrada PENDIENTE, notificación encolada", venta.getId());
+        return venta;
     }
 }
@@ -0,0 +1,39 @@
+package org.example.tf25.domain.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Índice de asientos vendidos por evento (proyección de las ventas CONFIRMADAS).
+ * Permite armar el mapa de asientos sin cargar las ventas con sus colecciones.
+ * El par (externalEventoId, asientoId) es único: el índice de esa constraint sirve para buscar por evento.
+ */
+@Entity
+@Table(name = "asiento_vendido", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_asiento_vendido_evento_asiento", columnNames = {"external_evento_id", "asiento_id"})
+})
+public class AsientoVendido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "external_evento_id", nullable = false)
+    private String externalEventoId;
+
+    @Column(name = "asiento_id", nullable = false)
+    private String asientoId;
+
+    @Column(name = "venta_id")
+    private Long ventaId;
+
+    public Long getId() { return id; }
+
+    public String getExternalEventoId() { return externalEventoId; }
+    public void setExternalEventoId(String externalEventoId) { this.externalEventoId = externalEventoId; }
+
+    public String getAsientoId() { return asientoId; }
+    public void setAsientoId(String asientoId) { this.asientoId = asientoId; }
+
+    public Long getVentaId() { return ventaId; }
+    public void setVentaId(Long ventaId) { this.ventaId = ventaId; }
+}
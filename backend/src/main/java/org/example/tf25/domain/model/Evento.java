@@ -2,6 +2,7 @@ package org.example.tf25.domain.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,6 +10,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        // listado keyset por id, filtrado por estado y/o rango de fechaHora
+        @Index(name = "idx_evento_estado_id", columnList = "estado, id"),
+        @Index(name = "idx_evento_fecha", columnList = "fecha_hora")
+})
+// el evento EAGER de un lote de ventas se carga con un solo "where id in (...)"
+@BatchSize(size = 100)
 public class Evento {
 
     @Id
@@ -33,6 +41,12 @@ public class Evento {
     @Enumerated(EnumType.STRING)
     private EventoEstado estado = EventoEstado.ACTIVO;
 
+    // SHA-256 de los datos remotos (cátedra) con los que se sincronizó por última vez.
+    // Si no cambia, la sync no toca la fila.
+    @Column(name = "huella_remota", length = 64)
+    @JsonIgnore
+    private String huellaRemota;
+
     @OneToMany(mappedBy = "evento", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<Venta> ventas = new ArrayList<>();
@@ -105,4 +119,6 @@ public class Evento {
     public void setFilaAsientos(Integer filaAsientos) { this.filaAsientos = filaAsientos; }
     public Integer getColumnAsientos() { return columnAsientos; }
     public void setColumnAsientos(Integer columnAsientos) { this.columnAsientos = columnAsientos; }
+    public String getHuellaRemota() { return huellaRemota; }
+    public void setHuellaRemota(String huellaRemota) { this.huellaRemota = huellaRemota; }
 }
@@ -1,17 +1,23 @@
 package org.example.tf25.domain.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 @Entity
 @Table(indexes = {
-        @Index(name = "idx_venta_estado_retry", columnList = "estado, next_retry_at")
+        @Index(name = "idx_venta_estado_retry", columnList = "estado, next_retry_at"),
+        // listado keyset (createdAt desc, id desc), sin filtro, por estado y por evento
+        @Index(name = "idx_venta_created", columnList = "created_at, id"),
+        @Index(name = "idx_venta_estado_created", columnList = "estado, created_at, id"),
+        @Index(name = "idx_venta_evento_created", columnList = "evento_id, created_at, id")
 })
 public class Venta {
 
@@ -35,12 +41,16 @@ public class Venta {
     @Column(name = "session_id")
     private String sessionId;
 
+    // Los listados van por VentaConsultas (proyección). Cuando igual se cargan varias entidades juntas
+    // (reintentos, ventas por evento), las colecciones se traen de a 100 ventas por consulta y no de a una.
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(name = "venta_asientos", joinColumns = @JoinColumn(name = "venta_id"))
     @Column(name = "asiento_id")
     private Set<String> asientosIds = new LinkedHashSet<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(name = "venta_ocupantes", joinColumns = @JoinColumn(name = "venta_id"))
     @Column(name = "nombre")
     private List<String> nombresOcupantes = new java.util.ArrayList<>();
@@ -57,6 +67,16 @@ public class Venta {
     @Column(name = "next_retry_at")
     private Instant nextRetryAt;
 
+    // lease de VentaRetryJob mientras reenvía la venta (nulo o vencido = libre)
+    @Column(name = "reclamada_hasta")
+    private Instant reclamadaHasta;
+
+    // bloqueo optimista: dos escrituras sobre la misma venta (reintento, outbox, re-confirmación del
+    // usuario) no se pisan en silencio; el default cubre las filas creadas antes de la columna
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long version;
+
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
 
@@ -65,7 +85,9 @@ public class Venta {
 
     @PrePersist
     public void prePersist() {
-        var now = Instant.now();
+        // misma precisión que la columna (microsegundos): el cursor keyset se arma con este valor y tiene
+        // que coincidir con el guardado aunque la entidad no se haya releído
+        var now = Instant.now().truncatedTo(ChronoUnit.MICROS);
         this.createdAt = now;
         this.updatedAt = now;
     }
@@ -118,6 +140,24 @@ public class Venta {
     public Instant getNextRetryAt() { return nextRetryAt; }
     public void setNextRetryAt(Instant nextRetryAt) { this.nextRetryAt = nextRetryAt; }
 
+    public Instant getReclamadaHasta() { return reclamadaHasta; }
+    public void setReclamadaHasta(Instant reclamadaHasta) { this.reclamadaHasta = reclamadaHasta; }
+
+    public boolean estaReclamada(Instant ahora) {
+        return reclamadaHasta != null && reclamadaHasta.isAfter(ahora);
+    }
+
+    public long getVersion() { return version; }
+
+    /** Copia el resultado de un intento de notificación (estado, intentos, error y próximo reintento). */
+    public void copiarResultadoNotificacion(Venta origen) {
+        this.estado = origen.estado;
+        this.intentosNotificacion = origen.intentosNotificacion;
+        this.ultimoError = origen.ultimoError;
+        this.nextRetryAt = origen.nextRetryAt;
+        this.reclamadaHasta = origen.reclamadaHasta;
+    }
+
     public Instant getCreatedAt() { return createdAt; }
 
     public Long getEventoId() {
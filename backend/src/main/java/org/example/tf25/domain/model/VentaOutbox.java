@@ -0,0 +1,58 @@
+package org.example.tf25.domain.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Outbox de notificaciones de venta: se inserta en la misma transacción que deja la venta PENDIENTE
+ * y un despachador la procesa fuera de la transacción (HTTP al proxy / Kafka).
+ * procesado_at nulo = pendiente de despacho; reclamado_hasta es el lease de la instancia que la
+ * está despachando (vencido o nulo = libre para reclamar).
+ */
+@Entity
+@Table(name = "venta_outbox", indexes = {
+        @Index(name = "idx_venta_outbox_pendientes", columnList = "procesado_at, id")
+})
+public class VentaOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "venta_id", nullable = false)
+    private Long ventaId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "procesado_at")
+    private Instant procesadoAt;
+
+    @Column(name = "reclamado_hasta")
+    private Instant reclamadoHasta;
+
+    protected VentaOutbox() {
+    }
+
+    public VentaOutbox(Long ventaId) {
+        this.ventaId = ventaId;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+
+    public Long getVentaId() { return ventaId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getProcesadoAt() { return procesadoAt; }
+    public void setProcesadoAt(Instant procesadoAt) { this.procesadoAt = procesadoAt; }
+
+    public Instant getReclamadoHasta() { return reclamadoHasta; }
+    public void setReclamadoHasta(Instant reclamadoHasta) { this.reclamadoHasta = reclamadoHasta; }
+}
@@ -0,0 +1,34 @@
+package org.example.tf25.domain.repository;
+
+import org.example.tf25.domain.model.AsientoVendido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AsientoVendidoRepository extends JpaRepository<AsientoVendido, Long> {
+
+    @Query("select a.asientoId from AsientoVendido a where a.externalEventoId = :externalEventoId")
+    List<String> findAsientoIdsByExternalEventoId(@Param("externalEventoId") String externalEventoId);
+
+    /** Idempotente: si el asiento ya figura vendido para el evento no hace nada. */
+    @Modifying
+    @Query(value = "insert into asiento_vendido (external_evento_id, asiento_id, venta_id) " +
+            "values (:externalEventoId, :asientoId, :ventaId) on conflict do nothing", nativeQuery = true)
+    int registrar(@Param("externalEventoId") String externalEventoId,
+                  @Param("asientoId") String asientoId,
+                  @Param("ventaId") Long ventaId);
+
+    /** Completa el índice con las ventas CONFIRMADAS que todavía no figuran (ventas previas al índice). */
+    @Modifying
+    @Query(value = "insert into asiento_vendido (external_evento_id, asiento_id, venta_id) " +
+            "select v.external_evento_id, va.asiento_id, min(v.id) " +
+            "from venta v join venta_asientos va on va.venta_id = v.id " +
+            "where v.estado = 'CONFIRMADA' and v.external_evento_id is not null " +
+            "and not exists (select 1 from asiento_vendido a " +
+            "  where a.external_evento_id = v.external_evento_id and a.asiento_id = va.asiento_id) " +
+            "group by v.external_evento_id, va.asiento_id", nativeQuery = true)
+    int completarDesdeVentasConfirmadas();
+}
@@ -2,11 +2,49 @@ package org.example.tf25.domain.repository;
 import org.example.tf25.domain.model.Evento;
 import org.example.tf25.domain.model.EventoEstado;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface EventoRepository extends JpaRepository<Evento, Long> {
+public interface EventoRepository extends JpaRepository<Evento, Long>, JpaSpecificationExecutor<Evento> {
     Optional<Evento> findByExternalId(String externalId);
+
+    boolean existsByExternalId(String externalId);
     List<Evento> findByEstado(EventoEstado estado);
+
+    List<Evento> findByExternalIdIn(Collection<String> externalIds);
+
+    /**
+     * Soft delete masivo: marca como ELIMINADO todo evento sincronizado (con externalId)
+     * que no esté en la lista de ids vigentes de la cátedra. Una sola sentencia UPDATE.
+     */
+    @Modifying
+    @Query("update Evento e set e.estado = :eliminado " +
+            "where e.externalId is not null and e.externalId not in :vigentes " +
+            "and (e.estado is null or e.estado <> :eliminado)")
+    int marcarEliminadosExcepto(@Param("vigentes") Collection<String> vigentes,
+                                @Param("eliminado") EventoEstado eliminado);
+
+    /**
+     * Variante de {@link #marcarEliminadosExcepto} para cuando la cátedra no devuelve ningún evento
+     * ("not in ()" no es SQL válido).
+     */
+    @Modifying
+    @Query("update Evento e set e.estado = :eliminado " +
+            "where e.externalId is not null and (e.estado is null or e.estado <> :eliminado)")
+    int marcarTodosEliminados(@Param("eliminado") EventoEstado eliminado);
+
+    /**
+     * Soft delete puntual de los externalIds indicados (sync por lote). Una sola sentencia UPDATE.
+     */
+    @Modifying
+    @Query("update Evento e set e.estado = :eliminado " +
+            "where e.externalId in :externalIds and (e.estado is null or e.estado <> :eliminado)")
+    int marcarEliminados(@Param("externalIds") Collection<String> externalIds,
+                         @Param("eliminado") EventoEstado eliminado);
 }
@@ -0,0 +1,41 @@
+package org.example.tf25.domain.repository;
+
+import org.example.tf25.domain.model.VentaOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface VentaOutboxRepository extends JpaRepository<VentaOutbox, Long> {
+
+    /**
+     * Reclama filas pendientes sin lease vigente. Debe correr dentro de una transacción:
+     * las filas quedan bloqueadas hasta el commit y otras instancias las saltean (SKIP LOCKED).
+     */
+    @Query(value = "select * from venta_outbox where procesado_at is null " +
+            "and (reclamado_hasta is null or reclamado_hasta <= :ahora) " +
+            "order by id limit :limite for update skip locked", nativeQuery = true)
+    List<VentaOutbox> reclamarPendientes(@Param("ahora") Instant ahora, @Param("limite") int limite);
+
+    /**
+     * Extiende el lease de filas que esta instancia todavía tiene reclamadas (lease vigente, sin procesar).
+     * Devuelve cuántas se renovaron: menos que {@code ids.size()} significa que alguna ya se perdió.
+     */
+    @Modifying
+    @Transactional
+    @Query("update VentaOutbox o set o.reclamadoHasta = :hasta where o.id in :ids " +
+            "and o.procesadoAt is null and o.reclamadoHasta > :ahora")
+    int renovarReclamo(@Param("ids") Collection<Long> ids, @Param("ahora") Instant ahora, @Param("hasta") Instant hasta);
+
+    boolean existsByVentaIdAndProcesadoAtIsNull(Long ventaId);
+
+    @Modifying
+    @Transactional
+    @Query("update VentaOutbox o set o.procesadoAt = :ahora where o.id in :ids")
+    int marcarProcesados(@Param("ids") Collection<Long> ids, @Param("ahora") Instant ahora);
+}
@@ -4,8 +4,13 @@ import org.example.tf25.domain.model.Venta;
 import org.example.tf25.domain.model.VentaEstado;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +23,25 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
     @Override
     List<Venta> findAll();
 
-    List<Venta> findTop50ByEstadoAndNextRetryAtBeforeOrderByNextRetryAtAsc(VentaEstado estado, Instant now);
+    /**
+     * Reclama ventas PENDIENTE con el reintento vencido y sin lease vigente. Debe correr dentro de una
+     * transacción: las filas quedan bloqueadas hasta el commit y otras instancias las saltean (SKIP LOCKED).
+     */
+    @Query(value = "select * from venta where estado = 'PENDIENTE' and next_retry_at <= :ahora " +
+            "and (reclamada_hasta is null or reclamada_hasta <= :ahora) " +
+            "order by next_retry_at limit :limite for update skip locked", nativeQuery = true)
+    List<Venta> reclamarPendientes(@Param("ahora") Instant ahora, @Param("limite") int limite);
+
+    /**
+     * Extiende el lease de ventas que esta instancia todavía tiene reclamadas (PENDIENTE, lease vigente).
+     * No incrementa la versión: el resultado del reintento se guarda después sobre la misma versión.
+     * Devuelve cuántas se renovaron: menos que {@code ids.size()} significa que alguna ya se perdió.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Venta v set v.reclamadaHasta = :hasta where v.id in :ids " +
+            "and v.estado = org.example.tf25.domain.model.VentaEstado.PENDIENTE and v.reclamadaHasta > :ahora")
+    int renovarReclamo(@Param("ids") Collection<Long> ids, @Param("ahora") Instant ahora, @Param("hasta") Instant hasta);
 
     Optional<Venta> findFirstBySessionIdAndExternalEventoIdOrderByCreatedAtDesc(String sessionId, String externalEventoId);
 
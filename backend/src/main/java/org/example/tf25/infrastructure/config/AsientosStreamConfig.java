@@ -0,0 +1,48 @@
+package org.example.tf25.infrastructure.config;
+
+import org.example.tf25.application.usecase.AsientosStreamHub;
+import org.example.tf25.infrastructure.messaging.AsientosDeltaPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Suscribe el {@link AsientosStreamHub} a los canales de deltas de asientos ({@code tf25:asientos:*}).
+ * Solo con {@code tf25.session.store=redis}, igual que el store de sesiones: con el store en memoria
+ * (una réplica) el backend no necesita Redis para arrancar.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tf25.session.store", havingValue = "redis")
+public class AsientosStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer asientosListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                   AsientosStreamHub hub,
+                                                                   @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // por defecto el contenedor lanza un hilo por mensaje y los deltas de un evento pueden llegar al hub
+        // desordenados; con un solo hilo se entregan en el orden en que los publicó Redis
+        SimpleAsyncTaskExecutor entrega = new SimpleAsyncTaskExecutor("asientos-delta-");
+        entrega.setVirtualThreads(hilosVirtuales);
+        entrega.setConcurrencyLimit(1);
+        container.setTaskExecutor(entrega);
+        // la suscripción va aparte para no ocupar el único hilo de entrega
+        SimpleAsyncTaskExecutor suscripcion = new SimpleAsyncTaskExecutor("asientos-sub-");
+        suscripcion.setVirtualThreads(hilosVirtuales);
+        container.setSubscriptionExecutor(suscripcion);
+        container.addMessageListener((message, pattern) -> {
+            String canal = new String(message.getChannel(), StandardCharsets.UTF_8);
+            String externalEventoId = canal.substring(AsientosDeltaPublisher.PREFIJO_CANAL.length());
+            hub.recibir(externalEventoId, new String(message.getBody(), StandardCharsets.UTF_8));
+        }, new PatternTopic(AsientosDeltaPublisher.PREFIJO_CANAL + "*"));
+        return container;
+    }
+}
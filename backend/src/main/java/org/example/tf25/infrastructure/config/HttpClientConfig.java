@@ -0,0 +1,108 @@
+package org.example.tf25.infrastructure.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Cliente HTTP compartido (backend→proxy y login/registro contra la cátedra).
+ * Por defecto Apache HttpClient 5 con pool de conexiones keep-alive acotado por ruta y métricas del pool
+ * ({@code httpcomponents.httpclient.pool.*}, tag {@code httpclient=backend}).
+ * Con {@code tf25.http.http2=true} se usa el {@link HttpClient} del JDK negociando HTTP/2; ese cliente
+ * maneja su propio pool interno y no publica métricas de pool.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HttpClientConfig.class);
+
+    @Value("${tf25.http.connect-timeout:30s}")
+    private Duration connectTimeout;
+
+    @Value("${tf25.http.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${tf25.http.pool.max-total:200}") int maxTotal,
+            @Value("${tf25.http.pool.max-per-route:50}") int maxPorRuta,
+            @Value("${tf25.http.pool.validate-after-inactivity:2s}") Duration validarTrasInactividad,
+            @Value("${tf25.http.pool.time-to-live:5m}") Duration ttl,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        PoolingHttpClientConnectionManager cm = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPorRuta)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.of(validarTrasInactividad))
+                        .setTimeToLive(TimeValue.of(ttl))
+                        .build())
+                .build();
+        meterRegistry.ifAvailable(mr -> new PoolingHttpClientConnectionManagerMetricsBinder(cm, "backend").bindTo(mr));
+        return cm;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(
+            PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${tf25.http.pool.keep-alive:30s}") Duration keepAlive,
+            @Value("${tf25.http.pool.acquire-timeout:2s}") Duration esperaConexion
+    ) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Si el pool está agotado fallamos rápido en vez de encolar indefinidamente
+                        .setConnectionRequestTimeout(Timeout.of(esperaConexion))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                // Respetamos el Keep-Alive que anuncie el servidor, acotado por el nuestro
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue servidor = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    TimeValue maximo = TimeValue.of(keepAlive);
+                    return TimeValue.isPositive(servidor) && servidor.compareTo(maximo) < 0 ? servidor : maximo;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(
+            CloseableHttpClient pooledHttpClient,
+            @Value("${tf25.http.http2:false}") boolean http2
+    ) {
+        if (http2) {
+            log.info("Cliente HTTP: JDK HttpClient con HTTP/2");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build();
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(readTimeout);
+            return factory;
+        }
+        return new HttpComponentsClientHttpRequestFactory(pooledHttpClient);
+    }
+}
@@ -1,36 +1,72 @@
 package org.example.tf25.infrastructure.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Producer de ventas-confirmadas. Perfil pensado para ráfagas de reintentos:
+ * idempotente (sin duplicados por reintentos internos del cliente), con linger + batch para
+ * juntar registros chicos y compresión por batch. Las métricas del cliente (record-send-rate,
+ * batch-size-avg, compression-rate-avg, ...) se publican en Micrometer como kafka.producer.*.
+ */
 @Configuration
 public class KafkaProducerConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${tf25.kafka.producer.compression:lz4}")
+    private String compression;
+
+    @Value("${tf25.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${tf25.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${tf25.kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    @Value("${tf25.kafka.producer.max-block-ms:60000}")
+    private int maxBlockMs;
+
     @Bean
-    public ProducerFactory<String, JsonNode> producerFactory() {
+    public ProducerFactory<String, JsonNode> producerFactory(ObjectProvider<MeterRegistry> meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        // idempotencia exige acks=all y a lo sumo 5 requests en vuelo por conexión
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+
+        DefaultKafkaProducerFactory<String, JsonNode> factory = new DefaultKafkaProducerFactory<>(configProps);
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerProducerListener<>(registry)));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, JsonNode> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, JsonNode> kafkaTemplate(ProducerFactory<String, JsonNode> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -2,6 +2,7 @@ package org.example.tf25.application.usecase;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.tf25.application.dto.ResultadoSincronizacion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -23,7 +24,7 @@ public class EventoSyncScheduler {
     @Scheduled(fixedDelayString = "${tf25.sync.fixed-delay-ms:60000}")
     public void syncEventosPeriodicamente() {
         log.info("Iniciando sincronización automática de eventos...");
-        int count = eventoService.sincronizarEventos();
-        log.info("Sincronización completada: {} eventos procesados", count);
+        ResultadoSincronizacion resultado = eventoService.sincronizarEventos();
+        log.info("Sincronización completada: {} eventos procesados", resultado.procesados());
     }
 }
@@ -0,0 +1,69 @@
+package org.example.tf25.infrastructure.messaging;
+
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.application.usecase.AsientosStreamHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Publica como VENDIDO los asientos de cada venta confirmada en el canal de deltas
+ * {@code tf25:asientos:{eventId}} (mismo formato y secuencia que usa el proxy para locks).
+ * Con el store de sesiones en memoria no hay Redis compartido: el delta va directo al hub local.
+ */
+@Component
+public class AsientosDeltaPublisher {
+    private static final Logger log = LoggerFactory.getLogger(AsientosDeltaPublisher.class);
+
+    public static final String PREFIJO_CANAL = "tf25:asientos:";
+
+    // INCR + PUBLISH atómicos: los deltas de un evento salen en orden de secuencia
+    private static final DefaultRedisScript<Long> PUBLICAR = new DefaultRedisScript<>(
+            "local seq = redis.call('incr', KEYS[1]) " +
+            "redis.call('publish', KEYS[2], seq .. '|' .. ARGV[1] .. '|' .. ARGV[2]) " +
+            "return seq",
+            Long.class);
+
+    private final ObjectProvider<StringRedisTemplate> redis;
+    private final AsientosStreamHub hub;
+    private final boolean conRedis;
+
+    public AsientosDeltaPublisher(ObjectProvider<StringRedisTemplate> redis,
+                                  AsientosStreamHub hub,
+                                  @Value("${tf25.session.store:memoria}") String store) {
+        this.redis = redis;
+        this.hub = hub;
+        this.conRedis = "redis".equalsIgnoreCase(store);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmarVenta(VentaConfirmadaEvent evento) {
+        if (evento.externalEventoId() == null) return;
+        for (String asientoId : evento.asientosIds()) {
+            publicar(evento.externalEventoId(), asientoId, "VENDIDO");
+        }
+    }
+
+    public void publicar(String externalEventoId, String asientoId, String estado) {
+        if (!conRedis) {
+            hub.publicarLocal(externalEventoId, asientoId, estado);
+            return;
+        }
+        try {
+            redis.getObject().execute(PUBLICAR,
+                    List.of(PREFIJO_CANAL + "seq:" + externalEventoId, PREFIJO_CANAL + externalEventoId),
+                    asientoId, estado);
+        } catch (Exception ex) {
+            // el stream es best-effort: la venta ya está confirmada
+            log.debug("No se pudo publicar delta {} {} {}: {}", externalEventoId, asientoId, estado, ex.toString());
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -26,6 +28,26 @@ public class VentaKafkaProducer {
     }
 
     public CompletableFuture<Void> enviarNotificacionVenta(Venta venta) {
+        return enviar(venta, true);
+    }
+
+    /**
+     * Envía varias ventas de una vez: se encolan todas antes de esperar nada, así el producer
+     * las agrupa en batches (linger/batch.size) y las comprime juntas.
+     *
+     * @return un future por venta, en el mismo orden de la lista
+     */
+    public List<CompletableFuture<Void>> enviarNotificaciones(List<Venta> ventas) {
+        if (ventas.isEmpty()) return List.of();
+        List<CompletableFuture<Void>> envios = new ArrayList<>(ventas.size());
+        for (Venta venta : ventas) {
+            envios.add(enviar(venta, false));
+        }
+        log.info("Kafka SEND topic={} lote de {} ventas", topic, ventas.size());
+        return envios;
+    }
+
+    private CompletableFuture<Void> enviar(Venta venta, boolean logIndividual) {
         String key = String.valueOf(venta.getId());
         int eventoId;
         try {
@@ -43,11 +65,15 @@ public class VentaKafkaProducer {
                 .set("asientos", JsonNodeFactory.instance.arrayNode().addAll(
                         venta.getAsientosIds().stream().map(JsonNodeFactory.instance::textNode).toList()
                 ));
-        log.info("Kafka SEND topic={} key={} payload={}", topic, key, payload);
+        if (logIndividual) {
+            log.info("Kafka SEND topic={} key={}", topic, key);
+        }
+        // el payload incluye email del comprador: solo en DEBUG
+        log.debug("Kafka SEND topic={} key={} payload={}", topic, key, payload);
 
         return kafkaTemplate.send(topic, key, payload)
                 .thenAccept(result -> {
-                    log.info("Kafka OK topic={} key={} partition={} offset={}",
+                    log.debug("Kafka OK topic={} key={} partition={} offset={}",
                             topic, key,
                             result.getRecordMetadata().partition(),
                             result.getRecordMetadata().offset()
@@ -0,0 +1,44 @@
+package org.example.tf25.infrastructure.persistence;
+
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.domain.repository.AsientoVendidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene la tabla asiento_vendido a partir de las ventas confirmadas.
+ * El alta corre en la misma transacción que confirma la venta (listener sincrónico),
+ * así el índice nunca queda detrás de lo que ya está commiteado.
+ */
+@Component
+public class AsientoVendidoIndexer {
+    private static final Logger log = LoggerFactory.getLogger(AsientoVendidoIndexer.class);
+
+    private final AsientoVendidoRepository asientoVendidoRepository;
+
+    public AsientoVendidoIndexer(AsientoVendidoRepository asientoVendidoRepository) {
+        this.asientoVendidoRepository = asientoVendidoRepository;
+    }
+
+    @EventListener
+    @Transactional
+    public void alConfirmarVenta(VentaConfirmadaEvent evento) {
+        if (evento.externalEventoId() == null || evento.asientosIds() == null) return;
+        for (String asientoId : evento.asientosIds()) {
+            asientoVendidoRepository.registrar(evento.externalEventoId(), asientoId, evento.ventaId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void completarIndice() {
+        int agregados = asientoVendidoRepository.completarDesdeVentasConfirmadas();
+        if (agregados > 0) {
+            log.info("Índice de asientos vendidos: {} asientos agregados desde ventas confirmadas", agregados);
+        }
+    }
+}
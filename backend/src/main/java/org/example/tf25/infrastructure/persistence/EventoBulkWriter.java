@@ -0,0 +1,112 @@
+package org.example.tf25.infrastructure.persistence;
+
+import org.example.tf25.domain.model.Evento;
+import org.example.tf25.domain.model.EventoEstado;
+import org.example.tf25.domain.repository.EventoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escritura set-based de eventos para la sincronización periódica.
+ * Inserta y actualiza con batches JDBC (sin pasar por el dirty-checking de Hibernate)
+ * y resuelve el soft delete con un único UPDATE.
+ */
+@Component
+public class EventoBulkWriter {
+    private static final Logger log = LoggerFactory.getLogger(EventoBulkWriter.class);
+
+    private static final String INSERT_SQL =
+            "insert into evento (external_id, nombre, descripcion, fecha_hora, cupo, precio, " +
+            "fila_asientos, column_asientos, estado, huella_remota) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "update evento set nombre = ?, descripcion = ?, fecha_hora = ?, cupo = ?, precio = ?, " +
+            "fila_asientos = ?, column_asientos = ?, estado = ?, huella_remota = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventoRepository eventoRepository;
+    private final int batchSize;
+
+    public EventoBulkWriter(JdbcTemplate jdbcTemplate,
+                            EventoRepository eventoRepository,
+                            @Value("${tf25.sync.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventoRepository = eventoRepository;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Aplica en una sola transacción los inserts, updates y el soft delete de una corrida de sync.
+     *
+     * @param nuevos       eventos a insertar (sin id)
+     * @param modificados  eventos existentes (con id) cuyos datos cambiaron
+     * @param idsVigentes  externalIds que siguen publicados en la cátedra; el resto pasa a ELIMINADO
+     * @return cantidad de eventos marcados como ELIMINADO
+     */
+    @Transactional
+    public int aplicar(List<Evento> nuevos, List<Evento> modificados, Collection<String> idsVigentes) {
+        escribir(nuevos, modificados);
+
+        int eliminados = idsVigentes.isEmpty()
+                ? eventoRepository.marcarTodosEliminados(EventoEstado.ELIMINADO)
+                : eventoRepository.marcarEliminadosExcepto(idsVigentes, EventoEstado.ELIMINADO);
+
+        log.debug("EventoBulkWriter: {} insertados, {} actualizados, {} eliminados",
+                nuevos.size(), modificados.size(), eliminados);
+        return eliminados;
+    }
+
+    /**
+     * Variante para la sync por lote: solo toca los eventos del lote (los demás no se marcan ELIMINADO).
+     *
+     * @param aEliminar externalIds que la cátedra ya no publica
+     * @return cantidad de eventos marcados como ELIMINADO
+     */
+    @Transactional
+    public int aplicarLote(List<Evento> nuevos, List<Evento> modificados, Collection<String> aEliminar) {
+        escribir(nuevos, modificados);
+        int eliminados = aEliminar.isEmpty() ? 0 : eventoRepository.marcarEliminados(aEliminar, EventoEstado.ELIMINADO);
+        log.debug("EventoBulkWriter (lote): {} insertados, {} actualizados, {} eliminados",
+                nuevos.size(), modificados.size(), eliminados);
+        return eliminados;
+    }
+
+    private void escribir(List<Evento> nuevos, List<Evento> modificados) {
+        if (!nuevos.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, nuevos, batchSize, (ps, e) -> {
+                ps.setString(1, e.getExternalId());
+                setDatos(ps, 2, e);
+            });
+        }
+        if (!modificados.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, modificados, batchSize, (ps, e) -> {
+                setDatos(ps, 1, e);
+                ps.setLong(10, e.getId());
+            });
+        }
+    }
+
+    /** Setea nombre..huella_remota (9 columnas) a partir de la posición indicada. */
+    private static void setDatos(PreparedStatement ps, int desde, Evento e) throws SQLException {
+        int i = desde;
+        ps.setObject(i++, e.getNombre(), Types.VARCHAR);
+        ps.setObject(i++, e.getDescripcion(), Types.VARCHAR);
+        ps.setObject(i++, e.getFechaHora(), Types.TIMESTAMP);
+        ps.setObject(i++, e.getCupo(), Types.INTEGER);
+        ps.setObject(i++, e.getPrecio(), Types.NUMERIC);
+        ps.setObject(i++, e.getFilaAsientos(), Types.INTEGER);
+        ps.setObject(i++, e.getColumnAsientos(), Types.INTEGER);
+        ps.setObject(i++, e.getEstado() != null ? e.getEstado().name() : null, Types.VARCHAR);
+        ps.setObject(i, e.getHuellaRemota(), Types.VARCHAR);
+    }
+}
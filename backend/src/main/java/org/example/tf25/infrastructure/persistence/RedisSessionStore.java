@@ -0,0 +1,115 @@
+package org.example.tf25.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.tf25.application.dto.SessionState;
+import org.example.tf25.application.usecase.SessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sesiones compartidas entre réplicas del backend en Redis.
+ * <ul>
+ *   <li>Clave {@code tf25:sesion:{sessionId}} con el estado en binario ({@link SessionStateCodec}).</li>
+ *   <li>Cada lectura usa GETEX, que devuelve el valor y renueva el TTL en un solo comando atómico.</li>
+ *   <li>Near-cache local de vida corta para {@link #obtenerCacheada(String)}: evita el round-trip en
+ *       lecturas de solo consulta. {@link #obtener(String)} siempre va a Redis. Guarda los bytes
+ *       serializados, así cada lectura devuelve una copia propia y nadie puede modificar lo cacheado.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "tf25.session.store", havingValue = "redis")
+public class RedisSessionStore implements SessionStore {
+    private static final Logger log = LoggerFactory.getLogger(RedisSessionStore.class);
+
+    private static final String PREFIJO = "tf25:sesion:";
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final Duration ttl;
+    private final Cache<String, byte[]> nearCache;
+
+    @Autowired
+    public RedisSessionStore(RedisConnectionFactory connectionFactory,
+                             MeterRegistry meterRegistry,
+                             @Value("${tf25.session.ttl:5m}") Duration ttl,
+                             @Value("${tf25.session.near-cache.ttl:2s}") Duration nearCacheTtl,
+                             @Value("${tf25.session.near-cache.max-size:10000}") long nearCacheMaxSize) {
+        this(plantilla(connectionFactory), meterRegistry, ttl, nearCacheTtl, nearCacheMaxSize, Ticker.systemTicker());
+    }
+
+    public RedisSessionStore(RedisTemplate<String, byte[]> redis,
+                             MeterRegistry meterRegistry,
+                             Duration ttl,
+                             Duration nearCacheTtl,
+                             long nearCacheMaxSize,
+                             Ticker ticker) {
+        this.redis = redis;
+        this.ttl = ttl;
+
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(nearCacheTtl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "tf25.sesiones.near-cache");
+
+        log.info("RedisSessionStore: ttl={}, nearCache(ttl={}, maxSize={})", ttl, nearCacheTtl, nearCacheMaxSize);
+    }
+
+    private static RedisTemplate<String, byte[]> plantilla(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Override
+    public Optional<SessionState> obtener(String sessionId) {
+        byte[] raw = redis.opsForValue().getAndExpire(PREFIJO + sessionId, ttl);
+        if (raw == null) {
+            nearCache.invalidate(sessionId);
+            return Optional.empty();
+        }
+        nearCache.put(sessionId, raw);
+        return Optional.of(SessionStateCodec.deserializar(raw));
+    }
+
+    @Override
+    public Optional<SessionState> obtenerCacheada(String sessionId) {
+        byte[] cacheada = nearCache.getIfPresent(sessionId);
+        if (cacheada != null) {
+            return Optional.of(SessionStateCodec.deserializar(cacheada));
+        }
+        return obtener(sessionId);
+    }
+
+    @Override
+    public void guardar(SessionState state) {
+        // se serializa una vez: lo que queda en el near-cache es lo mismo que se escribió en Redis
+        byte[] raw = SessionStateCodec.serializar(state);
+        redis.opsForValue().set(PREFIJO + state.getSessionId(), raw, ttl);
+        nearCache.put(state.getSessionId(), raw);
+    }
+
+    @Override
+    public void eliminar(String sessionId) {
+        redis.delete(PREFIJO + sessionId);
+        nearCache.invalidate(sessionId);
+    }
+}
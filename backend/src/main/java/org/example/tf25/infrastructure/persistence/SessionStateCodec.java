@@ -0,0 +1,95 @@
+package org.example.tf25.infrastructure.persistence;
+
+import org.example.tf25.application.dto.PasoFlujoCompra;
+import org.example.tf25.application.dto.SessionState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Serialización binaria compacta de {@link SessionState} para guardarla en Redis.
+ * <pre>
+ * version(1) | flags(1) | sessionId | [userId] | [externalEventoId] | paso(1) | n(2) | asiento * n
+ * </pre>
+ * Los strings van en UTF modificado (largo de 2 bytes + bytes). El paso se guarda por ordinal,
+ * así que los valores nuevos de {@link PasoFlujoCompra} tienen que agregarse al final; un ordinal
+ * desconocido (escrito por una réplica más nueva durante un deploy) se lee como sin paso.
+ */
+public final class SessionStateCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final int TIENE_USER_ID = 1;
+    private static final int TIENE_EVENTO_ID = 1 << 1;
+    private static final int TUVO_BLOQUEOS = 1 << 2;
+
+    private static final int SIN_PASO = 0xFF;
+    private static final PasoFlujoCompra[] PASOS = PasoFlujoCompra.values();
+
+    private SessionStateCodec() {
+    }
+
+    public static byte[] serializar(SessionState s) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int flags = 0;
+            if (s.getUserId() != null) flags |= TIENE_USER_ID;
+            if (s.getExternalEventoId() != null) flags |= TIENE_EVENTO_ID;
+            if (s.isTuvoBloqueosExitosos()) flags |= TUVO_BLOQUEOS;
+
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeUTF(s.getSessionId());
+            if (s.getUserId() != null) out.writeUTF(s.getUserId());
+            if (s.getExternalEventoId() != null) out.writeUTF(s.getExternalEventoId());
+            out.writeByte(s.getPasoActual() != null ? s.getPasoActual().ordinal() : SIN_PASO);
+
+            Set<String> asientos = s.getAsientosSeleccionados();
+            int n = asientos != null ? asientos.size() : 0;
+            out.writeShort(n);
+            if (n > 0) {
+                for (String a : asientos) {
+                    out.writeUTF(a);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SessionState deserializar(byte[] raw) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de sesión no soportada: " + version);
+            }
+            int flags = in.readUnsignedByte();
+
+            SessionState s = new SessionState();
+            s.setSessionId(in.readUTF());
+            if ((flags & TIENE_USER_ID) != 0) s.setUserId(in.readUTF());
+            if ((flags & TIENE_EVENTO_ID) != 0) s.setExternalEventoId(in.readUTF());
+            s.setTuvoBloqueosExitosos((flags & TUVO_BLOQUEOS) != 0);
+
+            int paso = in.readUnsignedByte();
+            s.setPasoActual(paso < PASOS.length ? PASOS[paso] : null);
+
+            int n = in.readUnsignedShort();
+            Set<String> asientos = new LinkedHashSet<>(Math.max(4, n * 2));
+            for (int i = 0; i < n; i++) {
+                asientos.add(in.readUTF());
+            }
+            s.setAsientosSeleccionados(asientos);
+            return s;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
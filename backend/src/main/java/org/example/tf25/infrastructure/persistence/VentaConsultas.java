@@ -0,0 +1,135 @@
+package org.example.tf25.infrastructure.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.tf25.application.dto.VentaDto;
+import org.example.tf25.application.dto.VentaPendienteDto;
+import org.example.tf25.domain.model.Evento;
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecturas de ventas para los listados, proyectadas directo a DTO. Seleccionar columnas (y no la entidad)
+ * evita que Hibernate dispare los EAGER de {@link Venta} fila por fila: una página cuesta una consulta
+ * escalar más una por colección para todas las ventas juntas, sin importar el tamaño de la página.
+ */
+@Component
+public class VentaConsultas {
+
+    static final int IDS_POR_CONSULTA = 1000;
+
+    private final EntityManager entityManager;
+
+    public VentaConsultas(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Columnas de la venta y su evento, sin las colecciones. */
+    public record FilaVenta(Long id, Long eventoId, String eventoNombre, VentaEstado estado,
+                            String compradorEmail, Integer cantidad, BigDecimal total,
+                            LocalDateTime fechaHora, Instant createdAt) {
+    }
+
+    /**
+     * Página de ventas como {@link VentaDto}: como máximo 3 consultas (filas, asientos y ocupantes).
+     *
+     * @param filtro  condiciones sobre {@link Venta} (filtros y posición keyset)
+     * @param orden   orden de la página; debe ser total (terminar en id) para que el keyset sea estable
+     * @param limite  filas a traer
+     */
+    @Transactional(readOnly = true)
+    public List<VentaDto> listar(Specification<Venta> filtro, Sort orden, int limite) {
+        return consultar(filtro, orden, limite);
+    }
+
+    /** Todas las ventas que cumplen {@code filtro}; las colecciones se leen de a {@value #IDS_POR_CONSULTA} ventas. */
+    @Transactional(readOnly = true)
+    public List<VentaDto> listar(Specification<Venta> filtro, Sort orden) {
+        return consultar(filtro, orden, null);
+    }
+
+    private List<VentaDto> consultar(Specification<Venta> filtro, Sort orden, Integer limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FilaVenta> cq = cb.createQuery(FilaVenta.class);
+        Root<Venta> v = cq.from(Venta.class);
+        Join<Venta, Evento> e = v.join("evento", JoinType.LEFT);
+        cq.select(cb.construct(FilaVenta.class,
+                v.get("id"), e.get("id"), e.get("nombre"), v.get("estado"),
+                v.get("compradorEmail"), v.get("cantidad"), v.get("total"),
+                v.get("fechaHora"), v.get("createdAt")));
+        Predicate condicion = filtro.toPredicate(v, cq, cb);
+        if (condicion != null) cq.where(condicion);
+        cq.orderBy(QueryUtils.toOrders(orden, v, cb));
+
+        var consulta = entityManager.createQuery(cq);
+        if (limite != null) consulta.setMaxResults(limite);
+        List<FilaVenta> filas = consulta.getResultList();
+        if (filas.isEmpty()) return List.of();
+
+        List<Long> ids = filas.stream().map(FilaVenta::id).toList();
+        Map<Long, List<String>> asientos = porVenta(
+                "select v.id, a from Venta v join v.asientosIds a where v.id in :ids", ids);
+        Map<Long, List<String>> ocupantes = porVenta(
+                "select v.id, o from Venta v join v.nombresOcupantes o where v.id in :ids", ids);
+
+        return filas.stream()
+                .map(f -> new VentaDto(
+                        f.id(),
+                        f.eventoId(),
+                        f.eventoId() != null ? f.eventoNombre() : "Evento Desconocido",
+                        asientos.getOrDefault(f.id(), new ArrayList<>()),
+                        ocupantes.getOrDefault(f.id(), new ArrayList<>()),
+                        f.estado(),
+                        f.compradorEmail(),
+                        f.cantidad(),
+                        f.total(),
+                        f.fechaHora(),
+                        f.createdAt()))
+                .toList();
+    }
+
+    /** Ventas en {@code estado}, por nextRetryAt ascendente; una sola consulta. */
+    @Transactional(readOnly = true)
+    public List<VentaPendienteDto> listarPorEstado(VentaEstado estado, int limite) {
+        return entityManager.createQuery(
+                        "select new org.example.tf25.application.dto.VentaPendienteDto(" +
+                                "v.id, coalesce(v.externalEventoId, ''), v.sessionId, v.estado, " +
+                                "v.intentosNotificacion, v.ultimoError, v.nextRetryAt) " +
+                                "from Venta v where v.estado = :estado order by v.nextRetryAt asc, v.id asc",
+                        VentaPendienteDto.class)
+                .setParameter("estado", estado)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private Map<Long, List<String>> porVenta(String jpql, List<Long> ids) {
+        Map<Long, List<String>> resultado = new HashMap<>();
+        // en tramos: el listado completo no debe pasarse del límite de parámetros por sentencia del driver
+        for (int desde = 0; desde < ids.size(); desde += IDS_POR_CONSULTA) {
+            List<Long> tramo = ids.subList(desde, Math.min(desde + IDS_POR_CONSULTA, ids.size()));
+            for (Tuple t : entityManager.createQuery(jpql, Tuple.class).setParameter("ids", tramo).getResultList()) {
+                resultado.computeIfAbsent(t.get(0, Long.class), k -> new ArrayList<>()).add(t.get(1, String.class));
+            }
+        }
+        return resultado;
+    }
+}
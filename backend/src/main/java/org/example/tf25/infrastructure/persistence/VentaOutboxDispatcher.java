@@ -0,0 +1,227 @@
+package org.example.tf25.infrastructure.persistence;
+
+import jakarta.annotation.PreDestroy;
+import org.example.tf25.application.dto.VentaEncoladaEvent;
+import org.example.tf25.application.usecase.VentaNotificador;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.model.VentaOutbox;
+import org.example.tf25.domain.repository.VentaOutboxRepository;
+import org.example.tf25.domain.repository.VentaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Despacha el outbox de ventas: por cada fila pendiente notifica la venta con {@link VentaNotificador}
+ * y marca la fila como procesada. Arranca apenas commitea una confirmación y, como red de seguridad
+ * (caídas, filas que quedaron sin despachar), sondea la tabla periódicamente.
+ * Como en {@link VentaRetryJob}, cada lote se reclama con SELECT ... FOR UPDATE SKIP LOCKED y un lease
+ * (reclamado_hasta) en una transacción corta, así varias instancias no despachan la misma fila; las
+ * notificaciones del lote van en paralelo (acotado), cada una con su timeout. El lease se renueva
+ * durante el lote para que cada notificación arranque con al menos {@code send-timeout} de lease por
+ * delante: el lote entero puede tardar mucho más que un lease.
+ * Entrega at-least-once: si el proceso cae entre la notificación y el marcado, la fila se vuelve a
+ * despachar al vencer el lease.
+ */
+@Component
+public class VentaOutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(VentaOutboxDispatcher.class);
+
+    private final VentaOutboxRepository outboxRepository;
+    private final VentaRepository ventaRepository;
+    private final VentaNotificador notificador;
+    private final TransactionTemplate tx;
+    private final int tamanioLote;
+    private final int paralelismo;
+    private final Duration lease;
+    private final Duration timeoutEnvio;
+
+    // una sola corrida a la vez por instancia; los avisos que llegan durante una corrida los toma esa misma
+    private final ReentrantLock corriendo = new ReentrantLock();
+    private final ExecutorService disparador = Executors.newSingleThreadExecutor(hilo("venta-outbox"));
+    private final ExecutorService envios;
+    // un permiso por hilo de `envios`: se devuelve cuando el hilo queda libre, no cuando vence el timeout,
+    // así ninguna notificación espera en la cola del pool con su timeout ya corriendo
+    private final Semaphore enVuelo;
+
+    public VentaOutboxDispatcher(VentaOutboxRepository outboxRepository,
+                                 VentaRepository ventaRepository,
+                                 VentaNotificador notificador,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${tf25.outbox.batch-size:50}") int tamanioLote,
+                                 @Value("${tf25.outbox.parallelism:8}") int paralelismo,
+                                 @Value("${tf25.outbox.lease:5m}") Duration lease,
+                                 @Value("${tf25.outbox.send-timeout:3m}") Duration timeoutEnvio) {
+        this.outboxRepository = outboxRepository;
+        this.ventaRepository = ventaRepository;
+        this.notificador = notificador;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.paralelismo = Math.max(1, paralelismo);
+        this.lease = lease;
+        this.timeoutEnvio = timeoutEnvio;
+        if (timeoutEnvio.compareTo(lease) >= 0) {
+            throw new IllegalArgumentException("tf25.outbox.send-timeout (" + timeoutEnvio + ") tiene que ser menor que "
+                    + "tf25.outbox.lease (" + lease + "): si no, una notificación lenta puede despacharse dos veces");
+        }
+        this.envios = Executors.newFixedThreadPool(this.paralelismo, hilo("venta-outbox-envio"));
+        this.enVuelo = new Semaphore(this.paralelismo);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alEncolarVenta(VentaEncoladaEvent evento) {
+        disparador.execute(this::despachar);
+    }
+
+    @Scheduled(fixedDelayString = "${tf25.outbox.poll-ms:5000}")
+    public void despachar() {
+        if (!corriendo.tryLock()) return;
+        try {
+            List<VentaOutbox> lote;
+            // drena de a lotes; un lote incompleto significa que no queda nada libre
+            do {
+                lote = reclamarLote();
+                if (lote.isEmpty()) break;
+                despacharLote(lote);
+            } while (lote.size() == tamanioLote);
+        } catch (Exception ex) {
+            // típicamente la base: las filas siguen pendientes y se retoman al vencer el lease
+            log.warn("Outbox de ventas: corrida interrumpida: {}", ex.toString());
+        } finally {
+            corriendo.unlock();
+        }
+    }
+
+    private List<VentaOutbox> reclamarLote() {
+        List<VentaOutbox> lote = tx.execute(status -> {
+            Instant ahora = Instant.now();
+            List<VentaOutbox> reclamadas = outboxRepository.reclamarPendientes(ahora, tamanioLote);
+            Instant hasta = ahora.plus(lease);
+            // dirty checking: el lease se escribe al commitear, antes de soltar los locks
+            reclamadas.forEach(f -> f.setReclamadoHasta(hasta));
+            return reclamadas;
+        });
+        return lote == null ? List.of() : lote;
+    }
+
+    private void despacharLote(List<VentaOutbox> lote) {
+        Queue<Long> procesadas = new ConcurrentLinkedQueue<>();
+        Set<Long> terminadas = ConcurrentHashMap.newKeySet();
+        AtomicInteger fallidas = new AtomicInteger();
+        List<CompletableFuture<Void>> futuros = new ArrayList<>(lote.size());
+        Instant leaseHasta = lote.get(0).getReclamadoHasta();
+        for (VentaOutbox fila : lote) {
+            enVuelo.acquireUninterruptibly();
+            Instant ahora = Instant.now();
+            if (ahora.plus(timeoutEnvio).isAfter(leaseHasta)) {
+                Instant renovado = renovarLease(lote, terminadas, ahora);
+                if (renovado == null) {
+                    // alguna fila ya pudo haberla reclamado otra instancia: el resto se retoma al vencer su lease
+                    enVuelo.release();
+                    break;
+                }
+                leaseHasta = renovado;
+            }
+            CompletableFuture<Void> resultado = new CompletableFuture<>();
+            Future<?> tarea = envios.submit(() -> {
+                try {
+                    despachar(fila);
+                    resultado.complete(null);
+                } catch (Throwable ex) {
+                    resultado.completeExceptionally(ex);
+                } finally {
+                    enVuelo.release();
+                }
+            });
+            // el hilo está libre (hay permiso), así que el timeout corre desde que la notificación arranca
+            futuros.add(resultado.orTimeout(timeoutEnvio.toMillis(), TimeUnit.MILLISECONDS)
+                    .handle((ok, ex) -> {
+                        terminadas.add(fila.getId());
+                        if (ex == null) {
+                            procesadas.add(fila.getId());
+                        } else {
+                            // orTimeout no corta la tarea: se interrumpe para que no siga ocupando el hilo
+                            // (y notificando) después de soltar la fila
+                            if (ex instanceof TimeoutException) tarea.cancel(true);
+                            // sin marcar: la fila se retoma cuando vence su lease
+                            fallidas.incrementAndGet();
+                            log.warn("Outbox de ventas: fila {} (venta {}) no se despachó: {}",
+                                    fila.getId(), fila.getVentaId(), ex.toString());
+                        }
+                        return (Void) null;
+                    }));
+        }
+
+        // handle() nunca termina excepcionalmente y cada envío tiene timeout: la espera está acotada
+        CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+
+        if (!procesadas.isEmpty()) {
+            outboxRepository.marcarProcesados(List.copyOf(procesadas), Instant.now());
+        }
+        log.debug("Outbox de ventas: lote de {} filas, {} procesadas, {} para reintentar",
+                lote.size(), procesadas.size(), fallidas.get());
+    }
+
+    /** Extiende el lease de las filas del lote que no terminaron; null si alguna ya no era nuestra. */
+    private Instant renovarLease(List<VentaOutbox> lote, Set<Long> terminadas, Instant ahora) {
+        List<Long> ids = lote.stream().map(VentaOutbox::getId).filter(id -> !terminadas.contains(id)).toList();
+        Instant hasta = ahora.plus(lease);
+        int renovadas = outboxRepository.renovarReclamo(ids, ahora, hasta);
+        if (renovadas < ids.size()) {
+            log.warn("Outbox de ventas: se renovó el lease de {} de {} filas; el resto del lote queda para la próxima corrida",
+                    renovadas, ids.size());
+            return null;
+        }
+        return hasta;
+    }
+
+    private void despachar(VentaOutbox fila) {
+        ventaRepository.findById(fila.getVentaId()).ifPresentOrElse(venta -> {
+            if (venta.getEstado() == VentaEstado.PENDIENTE) {
+                notificador.notificar(venta);
+            } else {
+                log.debug("Outbox de ventas: venta {} ya está {}, nada que notificar", venta.getId(), venta.getEstado());
+            }
+        }, () -> log.warn("Outbox de ventas: venta {} no existe", fila.getVentaId()));
+    }
+
+    private static ThreadFactory hilo(String nombre) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, nombre + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @PreDestroy
+    void cerrar() {
+        disparador.shutdownNow();
+        envios.shutdownNow();
+    }
+}
@@ -1,74 +1,230 @@
 package org.example.tf25.infrastructure.persistence;
 
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.application.usecase.PoliticaReintentos;
+import org.example.tf25.domain.model.Venta;
 import org.example.tf25.infrastructure.messaging.VentaKafkaProducer;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.example.tf25.domain.model.VentaEstado;
 import org.example.tf25.domain.repository.VentaRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reintenta por Kafka las ventas PENDIENTE cuyo nextRetryAt venció.
+ * Cada lote se reclama con SELECT ... FOR UPDATE SKIP LOCKED y se le pone reclamadaHasta (lease)
+ * en la misma transacción corta: varias instancias del backend se reparten las ventas sin enviarlas
+ * dos veces, una re-confirmación del usuario no toca una venta reclamada, y si una instancia cae sus
+ * ventas vuelven a estar disponibles al vencer el lease. Los envíos del lote van en paralelo (acotado)
+ * y se esperan juntos; antes de cada ventana se renueva el lease si lo que queda no alcanza para una
+ * ventana entera (send() bloqueante + timeout de envío), así un lote largo no se reclama dos veces. El resultado se guarda con control de versión (@Version en Venta): si otra
+ * escritura ganó, se aplica sobre la versión actual en vez de pisarla.
+ */
 @Component
 public class VentaRetryJob {
     private static final Logger log = LoggerFactory.getLogger(VentaRetryJob.class);
 
     private final VentaRepository ventaRepository;
     private final VentaKafkaProducer ventaKafkaProducer;
-
-    private static final int MAX_REINTENTOS = 10;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate tx;
+    private final int tamanioLote;
+    private final int paralelismo;
+    private final Duration lease;
+    private final Duration timeoutEnvio;
+    // lo más que puede tardar una ventana: send() puede bloquear max.block.ms antes de que corra el timeout
+    private final Duration duracionVentana;
+    private final PoliticaReintentos politicaReintentos;
 
     public VentaRetryJob(VentaRepository ventaRepository,
-                         VentaKafkaProducer ventaKafkaProducer) {
+                         VentaKafkaProducer ventaKafkaProducer,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         PoliticaReintentos politicaReintentos,
+                         @Value("${tf25.retry.batch-size:200}") int tamanioLote,
+                         @Value("${tf25.retry.parallelism:16}") int paralelismo,
+                         @Value("${tf25.retry.lease:5m}") Duration lease,
+                         @Value("${tf25.retry.send-timeout:0s}") Duration timeoutEnvio,
+                         @Value("${tf25.kafka.producer.delivery-timeout-ms:120000}") long deliveryTimeoutMs,
+                         @Value("${tf25.kafka.producer.max-block-ms:60000}") long maxBlockMs) {
         this.ventaRepository = ventaRepository;
         this.ventaKafkaProducer = ventaKafkaProducer;
+        this.eventPublisher = eventPublisher;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.politicaReintentos = politicaReintentos;
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.paralelismo = Math.max(1, paralelismo);
+        this.lease = lease;
+        this.timeoutEnvio = PoliticaReintentos.timeoutEnvio(timeoutEnvio, deliveryTimeoutMs);
+        this.duracionVentana = this.timeoutEnvio.plusMillis(maxBlockMs);
+        if (duracionVentana.compareTo(lease) >= 0) {
+            throw new IllegalArgumentException("tf25.retry.lease (" + lease + ") tiene que superar lo que puede tardar "
+                    + "una ventana de envíos (" + duracionVentana + " = send-timeout + max-block-ms): si no, una venta "
+                    + "puede reenviarse dos veces");
+        }
     }
 
-    @Scheduled(fixedDelay = 30_000)
+    @Scheduled(fixedDelayString = "${tf25.retry.fixed-delay-ms:30000}")
     public void reintentarPendientes() {
-        var now = Instant.now();
-        var pendientes = ventaRepository
-                .findTop50ByEstadoAndNextRetryAtBeforeOrderByNextRetryAtAsc(VentaEstado.PENDIENTE, now);
+        int procesadas = 0;
+        List<Venta> lote;
+        // drena el backlog de a lotes; un lote incompleto significa que no queda nada vencido
+        do {
+            lote = reclamarLote();
+            if (lote.isEmpty()) break;
+            log.info("Iniciando reintento de {} ventas pendientes", lote.size());
+            procesarLote(lote);
+            procesadas += lote.size();
+        } while (lote.size() == tamanioLote);
 
-        if (pendientes.isEmpty()) return;
+        if (procesadas > 0) {
+            log.info("Reintento de ventas pendientes terminado: {} procesadas", procesadas);
+        }
+    }
 
-        log.info("Iniciando reintento de {} ventas pendientes", pendientes.size());
+    private List<Venta> reclamarLote() {
+        List<Venta> lote = tx.execute(status -> {
+            Instant ahora = Instant.now();
+            List<Venta> reclamadas = ventaRepository.reclamarPendientes(ahora, tamanioLote);
+            Instant hasta = ahora.plus(lease);
+            // dirty checking: el lease se escribe al commitear, antes de soltar los locks
+            reclamadas.forEach(v -> v.setReclamadaHasta(hasta));
+            return reclamadas;
+        });
+        return lote == null ? List.of() : lote;
+    }
 
-        for (var v : pendientes) {
+    private void procesarLote(List<Venta> lote) {
+        List<Venta> aEnviar = new ArrayList<>(lote.size());
+        for (Venta v : lote) {
+            if (politicaReintentos.esPermanente(v.getUltimoError())) {
+                // el último fallo ya era permanente (p.ej. externalEventoId no numérico): reenviar no sirve
+                v.setEstado(VentaEstado.ERROR);
+                v.setNextRetryAt(null);
+                log.error("Venta {} pasó a estado ERROR sin reintentar: {}", v.getId(), v.getUltimoError());
+                continue;
+            }
             int intento = v.getIntentosNotificacion() + 1;
             v.setIntentosNotificacion(intento);
-            try {
-                log.info("Venta {}: reintentando notificación a cátedra vía Kafka (intento {})...", v.getId(), intento);
-                ventaKafkaProducer.enviarNotificacionVenta(v).join();
+            log.debug("Venta {}: reintentando notificación a cátedra vía Kafka (intento {})...", v.getId(), intento);
+            aEnviar.add(v);
+        }
 
-                v.setEstado(VentaEstado.CONFIRMADA);
-                v.setUltimoError(null);
-                v.setNextRetryAt(null);
-                log.info("Venta {} confirmada en retry", v.getId());
+        // ventanas de hasta `paralelismo` ventas: cada ventana se entrega junta al producer (que la agrupa
+        // en un batch comprimido) y nunca hay más de `paralelismo` envíos en vuelo
+        Semaphore permisos = new Semaphore(paralelismo);
+        List<CompletableFuture<Void>> envios = new ArrayList<>(aEnviar.size());
+        Set<Long> resueltas = ConcurrentHashMap.newKeySet();
+        List<Venta> sinEnviar = List.of();
+        Instant leaseHasta = lote.get(0).getReclamadaHasta();
+        for (int desde = 0; desde < aEnviar.size(); desde += paralelismo) {
+            List<Venta> ventana = aEnviar.subList(desde, Math.min(desde + paralelismo, aEnviar.size()));
+            permisos.acquireUninterruptibly(ventana.size());
+            Instant ahora = Instant.now();
+            if (ahora.plus(duracionVentana).isAfter(leaseHasta)) {
+                Instant renovado = renovarLease(aEnviar, resueltas, ahora);
+                if (renovado == null) {
+                    // alguna ya pudo haberla reclamado otra instancia: el resto ni se envía ni se guarda
+                    sinEnviar = aEnviar.subList(desde, aEnviar.size());
+                    break;
+                }
+                leaseHasta = renovado;
+            }
 
+            List<CompletableFuture<Void>> futuros;
+            try {
+                futuros = ventaKafkaProducer.enviarNotificaciones(ventana);
             } catch (Exception ex) {
-                Throwable cause = (ex instanceof java.util.concurrent.CompletionException) ? ex.getCause() : ex;
-                if (cause == null) cause = ex;
-                v.setUltimoError(cause.getClass().getSimpleName() + ": " + (cause.getMessage() == null ? "" : cause.getMessage()));
-
-                if (v.getIntentosNotificacion() >= MAX_REINTENTOS) {
-                    v.setEstado(VentaEstado.ERROR);
-                    v.setNextRetryAt(null);
-                    log.error("Venta {} pasó a estado ERROR tras {} intentos", v.getId(), v.getIntentosNotificacion());
-                } else {
-                    v.setNextRetryAt(Instant.now().plus(Duration.ofSeconds(60)));
-                    log.info("Venta {} sigue pendiente (retry {})", v.getId(), v.getIntentosNotificacion());
-                }
+                futuros = ventana.stream().map(v -> CompletableFuture.<Void>failedFuture(ex)).toList();
+            }
+            for (int i = 0; i < ventana.size(); i++) {
+                Venta v = ventana.get(i);
+                envios.add(futuros.get(i)
+                        .orTimeout(timeoutEnvio.toMillis(), TimeUnit.MILLISECONDS)
+                        .handle((ok, ex) -> {
+                            aplicarResultado(v, ex);
+                            resueltas.add(v.getId());
+                            return (Void) null;
+                        })
+                        .whenComplete((ok, ex) -> permisos.release()));
             }
-            ventaRepository.save(v);
         }
+
+        // handle() nunca termina excepcionalmente: allOf espera a que cada venta tenga su resultado
+        CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).join();
+
+        List<Venta> aGuardar = new ArrayList<>(lote);
+        aGuardar.removeAll(sinEnviar);
+        aGuardar.forEach(v -> v.setReclamadaHasta(null));
+        guardar(aGuardar);
+        for (Venta v : aGuardar) {
+            if (v.getEstado() == VentaEstado.CONFIRMADA) {
+                eventPublisher.publishEvent(new VentaConfirmadaEvent(v.getId(), v.getExternalEventoId(), v.getAsientosIds()));
+            }
+        }
+    }
+
+    /** Extiende el lease de las ventas que todavía no tienen resultado; null si alguna ya no era nuestra. */
+    private Instant renovarLease(List<Venta> aEnviar, Set<Long> resueltas, Instant ahora) {
+        List<Long> ids = aEnviar.stream().map(Venta::getId).filter(id -> !resueltas.contains(id)).toList();
+        Instant hasta = ahora.plus(lease);
+        int renovadas = ventaRepository.renovarReclamo(ids, ahora, hasta);
+        if (renovadas < ids.size()) {
+            log.warn("Reintento de ventas: se renovó el lease de {} de {} ventas; el resto del lote queda para la próxima corrida",
+                    renovadas, ids.size());
+            return null;
+        }
+        return hasta;
+    }
+
+    private void guardar(List<Venta> lote) {
+        try {
+            tx.executeWithoutResult(status -> lote.forEach(ventaRepository::save));
+        } catch (OptimisticLockingFailureException ex) {
+            // alguna venta cambió durante el envío: la transacción del lote se deshizo, se guarda de a una
+            log.warn("Reintento de ventas: conflicto de versión al guardar el lote, se guarda venta por venta");
+            for (Venta v : lote) {
+                tx.executeWithoutResult(status -> guardarSobreActual(v));
+            }
+        }
+    }
+
+    private void guardarSobreActual(Venta v) {
+        Venta actual = ventaRepository.findById(v.getId()).orElse(null);
+        if (actual == null) return;
+        if (actual.getVersion() != v.getVersion()) {
+            log.warn("Venta {}: cambió durante el reintento, se aplica el resultado sobre la versión actual", v.getId());
+        }
+        actual.copiarResultadoNotificacion(v);
+        ventaRepository.save(actual);
+    }
+
+    private void aplicarResultado(Venta v, Throwable ex) {
+        if (ex == null) {
+            v.setEstado(VentaEstado.CONFIRMADA);
+            v.setUltimoError(null);
+            v.setNextRetryAt(null);
+            log.info("Venta {} confirmada en retry", v.getId());
+            return;
+        }
+
+        politicaReintentos.aplicarFallo(v, ex);
     }
 }
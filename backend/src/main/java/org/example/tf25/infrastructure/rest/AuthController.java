@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -25,10 +25,10 @@ public class AuthController {
     private final String registerUrl;
 
     public AuthController(RestClient.Builder builder,
-                          SimpleClientHttpRequestFactory factory,
+                          ClientHttpRequestFactory factory,
                           @Value("${tf25.catedra.auth-url}") String authUrl,
                           @Value("${tf25.catedra.register-url}") String registerUrl) {
-        // Usamos un builder limpio y el factory con timeouts para evitar cuelgues
+        // Usamos un builder limpio y el factory compartido (pool + timeouts) para evitar cuelgues
         this.restClient = builder.requestFactory(factory).build();
         this.authUrl = authUrl;
         this.registerUrl = registerUrl;
@@ -2,18 +2,25 @@ package org.example.tf25.infrastructure.rest;
 
 import org.example.tf25.domain.model.Evento;
 import org.example.tf25.domain.model.EventoEstado;
+import org.example.tf25.application.usecase.AsientosStreamHub;
 import org.example.tf25.application.usecase.EventoService;
 import org.example.tf25.application.usecase.SessionService;
 import org.example.tf25.application.dto.AsientoDto;
+import org.example.tf25.application.dto.GrillaAsientos;
 import org.example.tf25.application.dto.SessionState;
 import org.example.tf25.application.dto.RespuestaBloqueoAsientosDto;
+import org.example.tf25.application.dto.ResultadoSincronizacion;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,18 +29,32 @@ public class EventoController {
 
     private final EventoService eventoService;
     private final SessionService sessionService;
+    private final AsientosStreamHub asientosStreamHub;
 
-    public EventoController(EventoService eventoService, SessionService sessionService) {
+    public EventoController(EventoService eventoService, SessionService sessionService,
+                            AsientosStreamHub asientosStreamHub) {
         this.eventoService = eventoService;
         this.sessionService = sessionService;
+        this.asientosStreamHub = asientosStreamHub;
     }
 
+    /**
+     * Listado paginado (keyset) por id. Sin {@code estado} trae solo ACTIVO, salvo {@code mostrarEliminados=true}
+     * (todos). {@code desde}/{@code hasta} filtran por fechaHora del evento. Si hay más páginas, el header
+     * {@code X-Next-Cursor} trae el cursor para la siguiente. Sin {@code cursor} ni {@code limit} devuelve
+     * todos (clientes anteriores a la paginación).
+     */
     @GetMapping
-    public List<Evento> listar(@RequestParam(value = "mostrarEliminados", defaultValue = "false") boolean mostrarEliminados) {
-        if (mostrarEliminados) {
-            return eventoService.findAll();
-        }
-        return eventoService.findByEstado(EventoEstado.ACTIVO);
+    public ResponseEntity<List<Evento>> listar(
+            @RequestParam(value = "mostrarEliminados", defaultValue = "false") boolean mostrarEliminados,
+            @RequestParam(value = "estado", required = false) EventoEstado estado,
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        EventoEstado filtro = (estado != null) ? estado : (mostrarEliminados ? null : EventoEstado.ACTIVO);
+        return Paginas.respuesta(eventoService.listarPagina(filtro, desde, hasta, cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -72,9 +93,9 @@ public class EventoController {
     }
 
     @PostMapping("/sync")
-    public ResponseEntity<Void> syncEventos() {
-        int count = eventoService.sincronizarEventos();
-        return ResponseEntity.accepted().build();
+    public ResponseEntity<ResultadoSincronizacion> syncEventos() {
+        ResultadoSincronizacion resultado = eventoService.sincronizarEventos();
+        return ResponseEntity.accepted().body(resultado);
     }
 
     @GetMapping("/{externalId}/asientos")
@@ -83,14 +104,7 @@ public class EventoController {
             @RequestHeader(value = "X-Session-Id", required = false) String sessionId
     ) {
         // 1) Resolver sesión
-        SessionState sessionState = sessionService
-                .obtenerSesion(sessionId)
-                .orElseGet(() -> sessionService.crearNuevaSesionParaEvento(null, externalEventoId));
-
-        if (sessionState.getExternalEventoId() == null) {
-            sessionState.setExternalEventoId(externalEventoId);
-            sessionService.guardarSesion(sessionState);
-        }
+        SessionState sessionState = resolverSesionDeLectura(sessionId, externalEventoId);
 
         // 2) Consultar asientos al proxy
         var asientos = eventoService.obtenerAsientos(externalEventoId);
@@ -101,6 +115,62 @@ public class EventoController {
                 .body(asientos);
     }
 
+    /**
+     * Mismo mapa en formato compacto (2 bits por asiento), solo si el cliente manda
+     * {@code Accept: application/vnd.tf25.seatmap+bin}. El JSON sigue siendo el formato por defecto.
+     */
+    @GetMapping(value = "/{externalId}/asientos", produces = GrillaAsientos.MEDIA_TYPE)
+    public ResponseEntity<byte[]> obtenerAsientosCompacto(
+            @PathVariable("externalId") String externalEventoId,
+            @RequestHeader(value = "X-Session-Id", required = false) String sessionId
+    ) {
+        SessionState sessionState = resolverSesionDeLectura(sessionId, externalEventoId);
+        GrillaAsientos grilla = eventoService.obtenerGrillaAsientos(externalEventoId);
+
+        return ResponseEntity.ok()
+                .header("X-Session-Id", sessionState.getSessionId())
+                .contentType(MediaType.parseMediaType(GrillaAsientos.MEDIA_TYPE))
+                .body(grilla.serializar());
+    }
+
+    /**
+     * Stream SSE con los cambios de asientos del evento (event: asiento, data: {seq, asientoId, estado}).
+     * Flujo esperado del cliente: pedir el mapa una vez y aplicar los deltas. Si reconecta, el navegador
+     * manda Last-Event-ID y recibe lo que se perdió; si llega "resync", vuelve a pedir el mapa completo.
+     * Un evento que no está sincronizado responde 404 (no se abre canal para ids arbitrarios).
+     */
+    @GetMapping(value = "/{externalId}/asientos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAsientos(
+            @PathVariable("externalId") String externalEventoId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        if (!eventoService.existeEvento(externalEventoId)) {
+            return ResponseEntity.notFound().build();
+        }
+        Long ultimoId = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                ultimoId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ignored) {
+                // id desconocido: se trata como conexión nueva
+            }
+        }
+        return ResponseEntity.ok(asientosStreamHub.suscribir(externalEventoId, ultimoId));
+    }
+
+    /** Lectura de solo consulta: la sesión puede salir del near-cache del store. */
+    private SessionState resolverSesionDeLectura(String sessionId, String externalEventoId) {
+        SessionState sessionState = sessionService
+                .obtenerSesionCacheada(sessionId)
+                .orElseGet(() -> sessionService.crearNuevaSesionParaEvento(null, externalEventoId));
+
+        if (sessionState.getExternalEventoId() == null) {
+            sessionState.setExternalEventoId(externalEventoId);
+            sessionService.guardarSesion(sessionState);
+        }
+        return sessionState;
+    }
+
     @PostMapping("/{externalId}/bloqueos")
     public ResponseEntity<?> bloquearAsientos(
             @PathVariable("externalId") String externalEventoId,
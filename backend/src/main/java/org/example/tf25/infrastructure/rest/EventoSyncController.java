@@ -4,13 +4,20 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.example.tf25.application.dto.PeticionSyncLoteDto;
+import org.example.tf25.application.dto.RespuestaSyncLoteDto;
+import org.example.tf25.application.dto.ResultadoSyncEvento;
 import org.example.tf25.application.usecase.EventoService;
+import org.example.tf25.application.usecase.MapaAsientosCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/eventos")
 @RequiredArgsConstructor
@@ -18,6 +25,7 @@ public class EventoSyncController {
     private static final Logger log = LoggerFactory.getLogger(EventoSyncController.class);
 
     private final EventoService eventoService;
+    private final MapaAsientosCache mapaAsientosCache;
 
     /**
      * Endpoint para que el Proxy notifique cambios de un evento.
@@ -29,10 +37,26 @@ public class EventoSyncController {
     public ResponseEntity<Void> syncEventoDesdeProxy(@PathVariable("externalId") String externalId) {
         log.info("Recibida notificación de cambio de evento desde Proxy para externalId={}", externalId);
         int procesados = eventoService.sincronizarEventoPorExternalId(externalId);
+        // cualquier cambio del evento (incluidos asientos) invalida el mapa cacheado
+        mapaAsientosCache.invalidar(externalId);
 
         if (procesados == 0) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Sync de varios eventos en un request (el proxy colapsa los cambios de un lote de Kafka):
+     *   POST /api/eventos/sync/lote  {"externalIds": ["1", "2"]}
+     * Responde 200 con el resultado por evento; un 5xx hace que el proxy reintente el lote.
+     */
+    @PostMapping("/sync/lote")
+    public ResponseEntity<RespuestaSyncLoteDto> syncEventosDesdeProxy(@RequestBody PeticionSyncLoteDto peticion) {
+        List<String> externalIds = peticion == null || peticion.externalIds() == null ? List.of() : peticion.externalIds();
+        log.info("Recibida notificación de cambio de {} eventos desde Proxy", externalIds.size());
+        List<ResultadoSyncEvento> resultados = eventoService.sincronizarEventosPorExternalIds(externalIds);
+        resultados.forEach(r -> mapaAsientosCache.invalidar(r.externalId()));
+        return ResponseEntity.ok(new RespuestaSyncLoteDto(resultados));
+    }
 }
@@ -2,6 +2,7 @@ package org.example.tf25.infrastructure.rest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -32,6 +33,17 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        log.warn("Conflicto de versión: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "timestamp", Instant.now().toString(),
+                "status", 409,
+                "error", "Conflict",
+                "message", "El recurso cambió mientras se procesaba la solicitud. Vuelva a intentar."
+        ));
+    }
+
     @ExceptionHandler(RestClientResponseException.class)
     public ResponseEntity<?> handleRestClientException(RestClientResponseException ex) {
         log.error("Error de la cátedra: Status {}, Body {}", ex.getStatusCode(), ex.getResponseBodyAsString());
@@ -0,0 +1,26 @@
+package org.example.tf25.infrastructure.rest;
+
+import org.example.tf25.application.dto.Pagina;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Respuesta HTTP de un listado paginado: el body sigue siendo la lista (compatible con los clientes
+ * existentes) y el cursor de la página siguiente va en {@code X-Next-Cursor}, ausente en la última.
+ */
+final class Paginas {
+
+    static final String HEADER_CURSOR = "X-Next-Cursor";
+
+    private Paginas() {
+    }
+
+    static <T> ResponseEntity<List<T>> respuesta(Pagina<T> pagina) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (pagina.siguienteCursor() != null) {
+            ok.header(HEADER_CURSOR, pagina.siguienteCursor());
+        }
+        return ok.body(pagina.items());
+    }
+}
@@ -1,13 +1,18 @@
 package org.example.tf25.infrastructure.rest;
 
 import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.application.dto.Pagina;
 import org.example.tf25.application.usecase.VentaService;
 import org.example.tf25.application.dto.VentaDto;
+import org.example.tf25.application.dto.VentaPendienteDto;
 import org.example.tf25.infrastructure.persistence.VentaRetryJob;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -32,32 +37,30 @@ public class VentaController {
         return ResponseEntity.created(URI.create("/api/ventas/" + v.getId())).body(VentaDto.from(v));
     }
 
+    /**
+     * Listado paginado (keyset), de la venta más nueva a la más vieja. El body es la página; si hay más,
+     * el header {@code X-Next-Cursor} trae el cursor a pasar en {@code cursor} para la siguiente.
+     * Sin {@code cursor} ni {@code limit} devuelve todas las ventas (clientes anteriores a la paginación).
+     * {@code desde}/{@code hasta} filtran por fecha de creación (ISO-8601, hasta exclusivo).
+     */
     @GetMapping
-    public List<VentaDto> listar(
+    public ResponseEntity<List<VentaDto>> listar(
             @RequestParam(value = "eventoId", required = false) Long eventoId,
-            @RequestParam(value = "email", required = false) String email
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "estado", required = false) VentaEstado estado,
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant hasta,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
     ) {
-        return ventaService.listarEntidades(eventoId, email).stream()
-                .map(this::toDto)
-                .toList();
+        Pagina<VentaDto> pagina = ventaService.listarPagina(eventoId, email, estado, desde, hasta, cursor, limit);
+        return Paginas.respuesta(pagina);
     }
 
-    private VentaDto toDto(Venta v) {
-        return VentaDto.from(v); }
-
-    public record VentaPendienteDto(Long id, String externalEventoId, String sessionId,
-                                    String estado, Integer intentos, String ultimoError, java.time.Instant nextRetryAt) {}
-
     @GetMapping("/pendientes")
     public List<VentaPendienteDto> listarPendientes(@RequestParam(name = "limit", defaultValue = "50") Integer limit) {
         int lim = (limit == null) ? 50 : limit;
-        return ventaService.listarPendientes(lim).stream()
-                .map(v -> new VentaPendienteDto(
-                        v.getId(), v.getExternalEventoId() != null ? v.getExternalEventoId() : "", v.getSessionId(),
-                        v.getEstado() == null ? null : v.getEstado().name(),
-                        v.getIntentosNotificacion(), v.getUltimoError(), v.getNextRetryAt()
-                ))
-                .toList();
+        return ventaService.listarPendientes(lim);
     }
 
     public record ConfirmarVentaRequest(String compradorEmail, List<String> nombresOcupantes) {}
@@ -79,18 +82,34 @@ public class VentaController {
         List<String> ocupantes = (req != null) ? req.nombresOcupantes() : null;
 
         Venta v = ventaService.confirmarVentaDesdeSesion(sessionId, email, ocupantes);
+        return ResponseEntity.ok(toConfirmarResponse(v));
+    }
 
-        String msg = v.getEstado() == org.example.tf25.domain.model.VentaEstado.CONFIRMADA
-                ? "Venta confirmada y notificada a la cátedra"
-                : "Venta guardada localmente; notificación falló y quedó " + v.getEstado();
+    /** Estado de una venta confirmada con /confirmar: el cliente consulta hasta que deja de estar PENDIENTE. */
+    @GetMapping("/{id}/estado")
+    public ResponseEntity<ConfirmarVentaResponse> estado(@PathVariable("id") Long id) {
+        return ventaService.obtenerVenta(id)
+                .map(v -> ResponseEntity.ok(toConfirmarResponse(v)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        return ResponseEntity.ok(new ConfirmarVentaResponse(
+    private ConfirmarVentaResponse toConfirmarResponse(Venta v) {
+        String msg = switch (v.getEstado()) {
+            case CONFIRMADA -> "Venta confirmada y notificada a la cátedra";
+            // sin nextRetryAt todavía está en el outbox; con nextRetryAt la tiene VentaRetryJob
+            case PENDIENTE -> v.getNextRetryAt() == null
+                    ? "Venta registrada; la notificación a la cátedra está en curso"
+                    : "Venta guardada localmente; notificación falló y quedó PENDIENTE";
+            default -> "Venta guardada localmente; notificación falló y quedó " + v.getEstado();
+        };
+
+        return new ConfirmarVentaResponse(
                 v.getId(),
                 v.getExternalEventoId() != null ? v.getExternalEventoId() : "",
                 v.getSessionId(),
                 v.getEstado().name(),
                 msg
-        ));
+        );
     }
 
     @PostMapping("/reintentar-pendientes")
@@ -0,0 +1,39 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.domain.repository.AsientoVendidoRepository;
+import org.example.tf25.infrastructure.persistence.AsientoVendidoIndexer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AsientoVendidoIndexerTest {
+
+    private AsientoVendidoRepository asientoVendidoRepository;
+    private AsientoVendidoIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        asientoVendidoRepository = mock(AsientoVendidoRepository.class);
+        indexer = new AsientoVendidoIndexer(asientoVendidoRepository);
+    }
+
+    @Test
+    void registraCadaAsientoDeLaVentaConfirmada() {
+        indexer.alConfirmarVenta(new VentaConfirmadaEvent(7L, "100", Set.of("r1c1", "r1c2")));
+
+        verify(asientoVendidoRepository).registrar("100", "r1c1", 7L);
+        verify(asientoVendidoRepository).registrar("100", "r1c2", 7L);
+    }
+
+    @Test
+    void ignoraVentasSinEvento() {
+        indexer.alConfirmarVenta(new VentaConfirmadaEvent(7L, null, Set.of("r1c1")));
+
+        verify(asientoVendidoRepository, never()).registrar(any(), any(), any());
+    }
+}
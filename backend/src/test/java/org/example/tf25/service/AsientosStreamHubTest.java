@@ -0,0 +1,201 @@
+package org.example.tf25.application.usecase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsientosStreamHubTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private AsientosStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new AsientosStreamHub(3, Duration.ofMinutes(1), Duration.ofMinutes(5), nanos::get);
+    }
+
+    @Test
+    void reenviaDeltasAlSuscriptorYDescartaDuplicados() {
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", null, cliente);
+
+        hub.recibir("1", "1|r1c1|BLOQUEADO");
+        hub.recibir("1", "1|r1c1|BLOQUEADO");
+        hub.recibir("1", "2|r1c1|VENDIDO");
+        hub.recibir("2", "1|r9c9|BLOQUEADO");
+
+        assertEquals(List.of("asiento#1", "asiento#2"), cliente.eventos);
+    }
+
+    @Test
+    void unHuecoOUnDeltaAtrasadoMandanResyncEnVezDelDelta() {
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", null, cliente);
+
+        hub.recibir("1", "1|r1c1|BLOQUEADO");
+        hub.recibir("1", "3|r1c3|BLOQUEADO");
+        hub.recibir("1", "2|r1c2|BLOQUEADO");
+        hub.recibir("1", "4|r1c4|VENDIDO");
+
+        assertEquals(List.of("asiento#1", "resync#3", "resync#3", "asiento#4"), cliente.eventos);
+
+        // tras el hueco el buffer arranca de nuevo: antes del 3 no se puede reanudar
+        EmitterFalso vuelve = new EmitterFalso();
+        hub.suscribir("1", 1L, vuelve);
+        assertEquals(List.of("resync#4"), vuelve.eventos);
+    }
+
+    @Test
+    void unClienteLentoNoFrenaSuscripcionesNiDeltas() throws Exception {
+        CountDownLatch enviando = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        EmitterFalso lento = new EmitterFalso() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                enviando.countDown();
+                try {
+                    soltar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(builder);
+            }
+        };
+        hub.suscribir("1", null, lento);
+        Thread publicador = Thread.ofPlatform().start(() -> hub.recibir("1", "1|r1c1|BLOQUEADO"));
+        assertTrue(enviando.await(5, TimeUnit.SECONDS));
+
+        EmitterFalso nuevo = new EmitterFalso();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                hub.suscribir("1", null, nuevo);
+                hub.recibir("1", "2|r1c2|BLOQUEADO");
+            });
+            assertEquals(2, hub.suscriptores("1"));
+        } finally {
+            soltar.countDown();
+            publicador.join();
+        }
+        // el hilo que ya estaba enviando despacha lo encolado, en orden
+        assertEquals(List.of("asiento#1", "asiento#2"), lento.eventos);
+        assertEquals(List.of("asiento#2"), nuevo.eventos);
+    }
+
+    @Test
+    void reanudaDesdeLastEventIdSiElBufferLoCubre() {
+        for (int i = 1; i <= 4; i++) {
+            hub.recibir("1", i + "|r1c" + i + "|BLOQUEADO");
+        }
+
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", 2L, cliente);
+
+        assertEquals(List.of("asiento#3", "asiento#4"), cliente.eventos);
+    }
+
+    @Test
+    void pideResyncSiElBufferYaNoCubreElLastEventId() {
+        for (int i = 1; i <= 5; i++) {
+            hub.recibir("1", i + "|r1c" + i + "|BLOQUEADO");
+        }
+
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", 1L, cliente);
+
+        // el buffer (capacidad 3) arranca en el 3: el 2 se perdió
+        assertEquals(List.of("resync#5"), cliente.eventos);
+        assertEquals(1, hub.suscriptores("1"));
+    }
+
+    @Test
+    void clienteCaidoSeQuitaSinAfectarAlResto() {
+        EmitterFalso sano = new EmitterFalso();
+        EmitterFalso caido = new EmitterFalso();
+        caido.fallar = true;
+        hub.suscribir("1", null, sano);
+        hub.suscribir("1", null, caido);
+
+        hub.recibir("1", "1|r1c1|LIBRE");
+
+        assertEquals(List.of("asiento#1"), sano.eventos);
+        assertEquals(1, hub.suscriptores("1"));
+    }
+
+    @Test
+    void ignoraMensajesMalFormados() {
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", null, cliente);
+
+        hub.recibir("1", "basura");
+        hub.recibir("1", "x|r1c1|LIBRE");
+
+        assertTrue(cliente.eventos.isEmpty());
+    }
+
+    @Test
+    void canalSinSuscriptoresNiDeltasSeDescartaTrasLaInactividad() {
+        hub.recibir("999", "1|r1c1|BLOQUEADO");
+        EmitterFalso conectado = new EmitterFalso();
+        hub.suscribir("1", null, conectado);
+
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        hub.latido();
+        assertEquals(2, hub.canalesAbiertos());
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        hub.latido();
+        // "1" tiene un suscriptor: se conserva aunque no haya deltas
+        assertEquals(1, hub.canalesAbiertos());
+        assertEquals(1, hub.suscriptores("1"));
+
+        // un cliente que vuelve a "999" con Last-Event-ID ya no tiene buffer: resync
+        EmitterFalso vuelve = new EmitterFalso();
+        hub.suscribir("999", 1L, vuelve);
+        assertEquals(List.of("resync#0"), vuelve.eventos);
+    }
+
+    @Test
+    void publicarLocalNumeraPorCanalYNoCreaCanalesSinSuscriptores() {
+        hub.publicarLocal("2", "r1c1", "VENDIDO");
+        assertEquals(0, hub.canalesAbiertos());
+
+        EmitterFalso cliente = new EmitterFalso();
+        hub.suscribir("1", null, cliente);
+        hub.publicarLocal("1", "r1c1", "VENDIDO");
+        hub.publicarLocal("1", "r1c2", "VENDIDO");
+
+        assertEquals(List.of("asiento#1", "asiento#2"), cliente.eventos);
+    }
+
+    /** Registra "nombre#id" de cada evento SSE enviado. */
+    private static class EmitterFalso extends SseEmitter {
+        final List<String> eventos = new ArrayList<>();
+        boolean fallar;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fallar) throw new IOException("broken pipe");
+            StringBuilder sb = new StringBuilder();
+            builder.build().forEach(d -> sb.append(d.getData()));
+            String texto = sb.toString();
+            eventos.add(campo(texto, "event:") + "#" + campo(texto, "id:"));
+        }
+
+        private static String campo(String texto, String prefijo) {
+            for (String linea : texto.split("\n")) {
+                if (linea.startsWith(prefijo)) return linea.substring(prefijo.length());
+            }
+            return "";
+        }
+    }
+}
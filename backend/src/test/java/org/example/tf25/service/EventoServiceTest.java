@@ -0,0 +1,212 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.ResultadoSincronizacion;
+import org.example.tf25.application.dto.ResultadoSyncEvento;
+import org.example.tf25.domain.model.Evento;
+import org.example.tf25.domain.model.EventoEstado;
+import org.example.tf25.domain.repository.AsientoVendidoRepository;
+import org.example.tf25.domain.repository.EventoRepository;
+import org.example.tf25.infrastructure.persistence.EventoBulkWriter;
+import org.example.tf25.proxy.dto.EventoProxyDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventoServiceTest {
+
+    private EventoRepository eventoRepository;
+    private EventoBulkWriter eventoBulkWriter;
+    private EventoService eventoService;
+
+    @BeforeEach
+    void setUp() {
+        eventoRepository = mock(EventoRepository.class);
+        eventoBulkWriter = mock(EventoBulkWriter.class);
+        eventoService = new EventoService(
+                mock(AsientoVendidoRepository.class),
+                eventoRepository,
+                mock(RestClient.class),
+                eventoBulkWriter,
+                mock(MapaAsientosCache.class),
+                4,
+                100,
+                500
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void procesarSincronizacionClasificaInsertUpdateYSinCambios() {
+        // GIVEN: 1 sin cambios (misma huella), 1 modificado (precio), 1 nuevo
+        Evento igual = existente(10L, "1", "Recital", new BigDecimal("100.00"));
+        igual.setHuellaRemota(HuellaEvento.de(remoto(1L, "Recital", new BigDecimal("100.00"))));
+        Evento viejo = existente(11L, "2", "Teatro", new BigDecimal("50"));
+        viejo.setHuellaRemota(HuellaEvento.de(remoto(2L, "Teatro", new BigDecimal("50"))));
+        when(eventoRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(igual, viejo));
+        when(eventoBulkWriter.aplicar(anyList(), anyList(), anyCollection())).thenReturn(4);
+
+        EventoProxyDto[] remotos = {
+                remoto(1L, "Recital", new BigDecimal("100")),
+                remoto(2L, "Teatro", new BigDecimal("75")),
+                remoto(3L, "Cine", new BigDecimal("20"))
+        };
+
+        // WHEN
+        ResultadoSincronizacion r = eventoService.procesarSincronizacion(remotos);
+
+        // THEN
+        assertEquals(1, r.insertados());
+        assertEquals(1, r.actualizados());
+        assertEquals(1, r.sinCambios());
+        assertEquals(4, r.eliminados());
+        verify(eventoRepository, never()).save(any());
+        verify(eventoRepository, never()).findAll();
+
+        ArgumentCaptor<List<Evento>> nuevos = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Evento>> modificados = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Collection<String>> vigentes = ArgumentCaptor.forClass(Collection.class);
+        verify(eventoBulkWriter).aplicar(nuevos.capture(), modificados.capture(), vigentes.capture());
+
+        assertEquals("3", nuevos.getValue().get(0).getExternalId());
+        assertEquals(11L, modificados.getValue().get(0).getId());
+        assertEquals(0, new BigDecimal("75").compareTo(modificados.getValue().get(0).getPrecio()));
+        assertEquals(HuellaEvento.de(remotos[1]), modificados.getValue().get(0).getHuellaRemota());
+        assertNotNull(nuevos.getValue().get(0).getHuellaRemota());
+        assertTrue(vigentes.getValue().containsAll(List.of("1", "2", "3")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void procesarSincronizacionReescribeSiNoHayHuellaOEstaEliminado() {
+        // GIVEN: fila previa a la huella y un evento ELIMINADO que reaparece con los mismos datos
+        EventoProxyDto dto1 = remoto(1L, "Recital", BigDecimal.TEN);
+        EventoProxyDto dto2 = remoto(2L, "Teatro", BigDecimal.ONE);
+        Evento sinHuella = existente(10L, "1", "Recital", BigDecimal.TEN);
+        Evento eliminado = existente(11L, "2", "Teatro", BigDecimal.ONE);
+        eliminado.setEstado(EventoEstado.ELIMINADO);
+        eliminado.setHuellaRemota(HuellaEvento.de(dto2));
+        when(eventoRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(sinHuella, eliminado));
+
+        // WHEN
+        ResultadoSincronizacion r = eventoService.procesarSincronizacion(new EventoProxyDto[]{dto1, dto2});
+
+        // THEN
+        assertEquals(2, r.actualizados());
+        assertEquals(0, r.sinCambios());
+        ArgumentCaptor<List<Evento>> modificados = ArgumentCaptor.forClass(List.class);
+        verify(eventoBulkWriter).aplicar(anyList(), modificados.capture(), anyCollection());
+        assertTrue(modificados.getValue().stream().allMatch(e -> e.getEstado() == EventoEstado.ACTIVO));
+    }
+
+    @Test
+    void huellaIgnoraEscalaDelPrecioYDetectaCambios() {
+        assertEquals(HuellaEvento.de(remoto(1L, "A", new BigDecimal("100"))),
+                HuellaEvento.de(remoto(1L, "A", new BigDecimal("100.00"))));
+        assertNotEquals(HuellaEvento.de(remoto(1L, "A", BigDecimal.TEN)),
+                HuellaEvento.de(remoto(1L, "B", BigDecimal.TEN)));
+        assertNotEquals(HuellaEvento.de(remoto(1L, null, BigDecimal.TEN)),
+                HuellaEvento.de(remoto(1L, "", BigDecimal.TEN)));
+    }
+
+    @Test
+    void procesarSincronizacionSinRemotosNoConsultaExistentes() {
+        when(eventoBulkWriter.aplicar(anyList(), anyList(), anyCollection())).thenReturn(2);
+
+        ResultadoSincronizacion r = eventoService.procesarSincronizacion(new EventoProxyDto[0]);
+
+        assertEquals(0, r.procesados());
+        assertEquals(2, r.eliminados());
+        verify(eventoRepository, never()).findByExternalIdIn(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sincronizarPorLoteDevuelveResultadoPorIdYEscribeEnUnaSolaLlamada() {
+        // GIVEN: 1 nuevo, 2 sin cambios, 3 vacío en cátedra (existía), 4 con 404, 5 con error de red
+        RestClient restClient = mock(RestClient.class, RETURNS_DEEP_STUBS);
+        String uri = "/api/endpoints/v1/evento/{externalId}";
+        EventoProxyDto dto2 = remoto(2L, "Teatro", BigDecimal.ONE);
+        when(restClient.get().uri(eq(uri), eq("1")).retrieve().body(EventoProxyDto.class)).thenReturn(remoto(1L, "Recital", BigDecimal.TEN));
+        when(restClient.get().uri(eq(uri), eq("2")).retrieve().body(EventoProxyDto.class)).thenReturn(dto2);
+        when(restClient.get().uri(eq(uri), eq("3")).retrieve().body(EventoProxyDto.class)).thenReturn(null);
+        when(restClient.get().uri(eq(uri), eq("4")).retrieve().body(EventoProxyDto.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+        when(restClient.get().uri(eq(uri), eq("5")).retrieve().body(EventoProxyDto.class))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        Evento sinCambios = existente(20L, "2", "Teatro", BigDecimal.ONE);
+        sinCambios.setHuellaRemota(HuellaEvento.de(dto2));
+        Evento sinDatos = existente(30L, "3", "Cine", BigDecimal.ONE);
+        when(eventoRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(sinCambios, sinDatos));
+
+        EventoService service = new EventoService(mock(AsientoVendidoRepository.class), eventoRepository,
+                restClient, eventoBulkWriter, mock(MapaAsientosCache.class), 2, 100, 500);
+
+        // WHEN (con un repetido)
+        List<ResultadoSyncEvento> r = service.sincronizarEventosPorExternalIds(List.of("1", "2", "3", "4", "5", "1"));
+
+        // THEN
+        assertEquals(List.of("1", "2", "3", "4", "5"), r.stream().map(ResultadoSyncEvento::externalId).toList());
+        assertEquals(List.of(ResultadoSyncEvento.Resultado.INSERTADO, ResultadoSyncEvento.Resultado.SIN_CAMBIOS,
+                        ResultadoSyncEvento.Resultado.ELIMINADO, ResultadoSyncEvento.Resultado.NO_ENCONTRADO,
+                        ResultadoSyncEvento.Resultado.ERROR),
+                r.stream().map(ResultadoSyncEvento::resultado).toList());
+
+        ArgumentCaptor<List<Evento>> nuevos = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Evento>> modificados = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Collection<String>> eliminar = ArgumentCaptor.forClass(Collection.class);
+        verify(eventoBulkWriter).aplicarLote(nuevos.capture(), modificados.capture(), eliminar.capture());
+        assertEquals("1", nuevos.getValue().get(0).getExternalId());
+        assertTrue(modificados.getValue().isEmpty());
+        assertEquals(List.of("3"), List.copyOf(eliminar.getValue()));
+        verify(eventoRepository, never()).save(any());
+    }
+
+    @Test
+    void sincronizarPorLoteConLaCatedraNoDisponibleDevuelveErrorYNoDaDeBaja() {
+        RestClient restClient = mock(RestClient.class, RETURNS_DEEP_STUBS);
+        when(restClient.get().uri(eq("/api/endpoints/v1/evento/{externalId}"), eq("7")).retrieve().body(EventoProxyDto.class))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null));
+        when(eventoRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(existente(70L, "7", "Recital", BigDecimal.TEN)));
+
+        EventoService service = new EventoService(mock(AsientoVendidoRepository.class), eventoRepository,
+                restClient, eventoBulkWriter, mock(MapaAsientosCache.class), 2, 100, 500);
+
+        List<ResultadoSyncEvento> r = service.sincronizarEventosPorExternalIds(List.of("7"));
+
+        assertEquals(ResultadoSyncEvento.Resultado.ERROR, r.get(0).resultado());
+        assertEquals("HTTP 503 del proxy", r.get(0).detalle());
+        verify(eventoBulkWriter).aplicarLote(eq(List.of()), eq(List.of()), eq(List.of()));
+    }
+
+    private static Evento existente(Long id, String externalId, String nombre, BigDecimal precio) {
+        Evento e = new Evento();
+        e.setId(id);
+        e.setExternalId(externalId);
+        e.setNombre(nombre);
+        e.setPrecio(precio);
+        e.setEstado(EventoEstado.ACTIVO);
+        return e;
+    }
+
+    private static EventoProxyDto remoto(Long id, String nombre, BigDecimal precio) {
+        EventoProxyDto dto = new EventoProxyDto();
+        dto.setId(id);
+        dto.setNombre(nombre);
+        dto.setPrecio(precio);
+        return dto;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.AsientoDto;
+import org.example.tf25.application.dto.GrillaAsientos;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrillaAsientosTest {
+
+    @Test
+    void empaquetaDosBitsPorAsientoYHaceRoundTrip() {
+        List<AsientoDto> ocupados = List.of(
+                new AsientoDto("r1c1", 1, 1, "Vendido"),
+                new AsientoDto("r2c3", 2, 3, "Bloqueado"),
+                new AsientoDto("r50c100", 50, 100, "Vendido")
+        );
+
+        GrillaAsientos grilla = GrillaAsientos.desde(ocupados, 50, 100);
+        byte[] raw = grilla.serializar();
+
+        // 5 bytes de cabecera + 5000 asientos / 4 por byte
+        assertEquals(5 + 1250, raw.length);
+        GrillaAsientos leida = GrillaAsientos.deserializar(raw);
+        assertEquals(50, leida.getFilas());
+        assertEquals(100, leida.getColumnas());
+        assertEquals(GrillaAsientos.VENDIDO, leida.estado(1, 1));
+        assertEquals(GrillaAsientos.LIBRE, leida.estado(1, 2));
+        assertEquals(GrillaAsientos.BLOQUEADO, leida.estado(2, 3));
+        assertEquals(GrillaAsientos.VENDIDO, leida.estado(50, 100));
+    }
+
+    @Test
+    void agrandaLaGrillaSiNoHayDimensionesOQuedanChicas() {
+        GrillaAsientos grilla = GrillaAsientos.desde(List.of(new AsientoDto("r3c7", 3, 7, "Bloqueado")), null, 5);
+
+        assertEquals(3, grilla.getFilas());
+        assertEquals(7, grilla.getColumnas());
+        assertEquals(GrillaAsientos.BLOQUEADO, grilla.estado(3, 7));
+    }
+
+    @Test
+    void posicionesImposiblesYDimensionesFueraDeRangoNoRompenLaGrilla() {
+        List<AsientoDto> ocupados = List.of(
+                new AsientoDto("r70000c1", 70000, 1, "Vendido"),
+                new AsientoDto("r2c3", 2, 3, "Bloqueado")
+        );
+
+        GrillaAsientos conAsientoImposible = GrillaAsientos.desde(ocupados, 10, 10);
+        assertEquals(10, conAsientoImposible.getFilas());
+        assertEquals(GrillaAsientos.BLOQUEADO, conAsientoImposible.estado(2, 3));
+
+        // dimensiones del evento no representables: se arma solo con los asientos válidos
+        GrillaAsientos sinDimensiones = GrillaAsientos.desde(ocupados, 100_000, 5_000);
+        assertEquals(2, sinDimensiones.getFilas());
+        assertEquals(3, sinDimensiones.getColumnas());
+    }
+
+    @Test
+    void remarcarUnAsientoPisaElEstadoAnterior() {
+        GrillaAsientos grilla = new GrillaAsientos(1, 4);
+        grilla.marcar(1, 2, GrillaAsientos.BLOQUEADO);
+        grilla.marcar(1, 2, GrillaAsientos.VENDIDO);
+        grilla.marcar(1, 3, GrillaAsientos.BLOQUEADO);
+
+        assertEquals(GrillaAsientos.VENDIDO, grilla.estado(1, 2));
+        assertEquals(GrillaAsientos.BLOQUEADO, grilla.estado(1, 3));
+        assertEquals(GrillaAsientos.LIBRE, grilla.estado(1, 4));
+    }
+
+    @Test
+    void rechazaBinarioTruncado() {
+        byte[] raw = new GrillaAsientos(10, 10).serializar();
+        assertThrows(IllegalArgumentException.class,
+                () -> GrillaAsientos.deserializar(java.util.Arrays.copyOf(raw, raw.length - 1)));
+    }
+}
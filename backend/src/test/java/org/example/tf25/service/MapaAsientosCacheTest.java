@@ -0,0 +1,120 @@
+package org.example.tf25.application.usecase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.tf25.application.dto.AsientoDto;
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapaAsientosCacheTest {
+
+    private MapaAsientosCache cache;
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new MapaAsientosCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void missesConcurrentesCompartenUnaSolaCarga() throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<AsientoDto>>> futuros = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futuros.add(pool.submit(() -> {
+                    largada.await();
+                    return cache.obtener("1", id -> {
+                        cargas.incrementAndGet();
+                        dormir(100);
+                        return List.of(new AsientoDto("r1c1", 1, 1, "Libre"));
+                    });
+                }));
+            }
+            largada.countDown();
+            for (var f : futuros) {
+                assertEquals(1, f.get(5, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void confirmarVentaInvalidaSoloEseEvento() {
+        cache.obtener("1", this::cargar);
+        cache.obtener("2", this::cargar);
+
+        cache.alConfirmarVenta(new VentaConfirmadaEvent(10L, "1", Set.of("r1c1")));
+        cache.obtener("1", this::cargar);
+        cache.obtener("2", this::cargar);
+
+        assertEquals(3, cargas.get());
+    }
+
+    @Test
+    void errorAlCargarNoQuedaCacheado() {
+        assertThrows(IllegalStateException.class,
+                () -> cache.obtener("1", id -> { throw new IllegalStateException("proxy caído"); }));
+
+        assertEquals(1, cache.obtener("1", this::cargar).size());
+    }
+
+    @Test
+    void cargaLentaNoTrabaOtrosEventosNiInvalidaciones() throws Exception {
+        CountDownLatch enCarga = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<AsientoDto>> lenta = pool.submit(() -> cache.obtener("1", id -> {
+                enCarga.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return cargar(id);
+            }));
+            assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+
+            // con la carga de "1" en curso, el resto del cache responde
+            assertEquals(1, cache.obtener("2", this::cargar).size());
+            cache.invalidar("2");
+            cache.invalidar("1");
+
+            liberar.countDown();
+            assertEquals(1, lenta.get(5, TimeUnit.SECONDS).size());
+        } finally {
+            liberar.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private List<AsientoDto> cargar(String externalEventoId) {
+        cargas.incrementAndGet();
+        return List.of(new AsientoDto("r1c1", 1, 1, "Libre"));
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoliticaReintentosTest {
+
+    private static final Instant AHORA = Instant.parse("2025-01-01T00:00:00Z");
+
+    private static PoliticaReintentos politica(double aleatorio) {
+        return new PoliticaReintentos(Duration.ofSeconds(10), Duration.ofMinutes(5), 10,
+                Clock.fixed(AHORA, ZoneOffset.UTC), () -> aleatorio);
+    }
+
+    @Test
+    void esperaCreceExponencialmenteHastaElMaximo() {
+        // con aleatorio ~1 la espera es el techo del intervalo
+        PoliticaReintentos p = politica(0.999999);
+        assertEquals(9, p.espera(1).toSeconds());   // [0, 10s)
+        assertEquals(19, p.espera(2).toSeconds());  // [0, 20s)
+        assertEquals(79, p.espera(4).toSeconds());  // [0, 80s)
+        assertEquals(299, p.espera(6).toSeconds()); // 320s recortado a 5m
+        assertEquals(299, p.espera(60).toSeconds()); // sin desbordar
+    }
+
+    @Test
+    void timeoutDeEnvioNuncaEsMenorQueElDeliveryTimeoutDelProducer() {
+        // sin configurar (o configurado por debajo): delivery.timeout.ms + margen
+        assertEquals(Duration.ofSeconds(125), PoliticaReintentos.timeoutEnvio(Duration.ZERO, 120_000));
+        assertEquals(Duration.ofSeconds(125), PoliticaReintentos.timeoutEnvio(Duration.ofSeconds(30), 120_000));
+        // por encima se respeta
+        assertEquals(Duration.ofMinutes(3), PoliticaReintentos.timeoutEnvio(Duration.ofMinutes(3), 120_000));
+    }
+
+    @Test
+    void jitterCompletoPuedeReintentarEnseguida() {
+        assertEquals(Duration.ZERO, politica(0.0).espera(8));
+        assertEquals(AHORA.plusSeconds(40), politica(0.5).proximoIntento(4));
+    }
+
+    @Test
+    void clasificaFallosPermanentesYTransitorios() {
+        PoliticaReintentos p = politica(0.5);
+        assertTrue(p.esPermanente(new CompletionException(new IllegalArgumentException("externalEventoId inválido: x"))));
+        assertTrue(p.esPermanente(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "bad", null, null, null)));
+        assertFalse(p.esPermanente(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "slow", null, null, null)));
+        assertFalse(p.esPermanente(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "token", null, null, null)));
+        assertFalse(p.esPermanente(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "down", null, null, null)));
+        assertFalse(p.esPermanente(new CompletionException(new TimeoutException())));
+
+        assertTrue(p.esPermanente("IllegalArgumentException: externalEventoId inválido: abc"));
+        assertFalse(p.esPermanente("RuntimeException: Kafka down"));
+        assertFalse(p.esPermanente((String) null));
+    }
+
+    @Test
+    void aplicarFalloTransitorioReprogramaYPermanentePasaAError() {
+        PoliticaReintentos p = politica(0.5);
+
+        Venta transitoria = new Venta();
+        transitoria.setIntentosNotificacion(1);
+        p.aplicarFallo(transitoria, new RuntimeException("Kafka down"));
+        assertEquals(VentaEstado.PENDIENTE, transitoria.getEstado());
+        assertEquals(AHORA.plusSeconds(5), transitoria.getNextRetryAt());
+        assertEquals("RuntimeException: Kafka down", transitoria.getUltimoError());
+
+        Venta agotada = new Venta();
+        agotada.setIntentosNotificacion(10);
+        p.aplicarFallo(agotada, new RuntimeException("Kafka down"));
+        assertEquals(VentaEstado.ERROR, agotada.getEstado());
+        assertNull(agotada.getNextRetryAt());
+
+        Venta permanente = new Venta();
+        permanente.setIntentosNotificacion(1);
+        p.aplicarFallo(permanente, new IllegalArgumentException("externalEventoId inválido: abc"));
+        assertEquals(VentaEstado.ERROR, permanente.getEstado());
+        assertNull(permanente.getNextRetryAt());
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.tf25.application.usecase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.tf25.application.dto.PasoFlujoCompra;
+import org.example.tf25.application.dto.SessionState;
+import org.example.tf25.infrastructure.persistence.RedisSessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link RedisSessionStore} contra un Redis en memoria (mock de {@link ValueOperations} sobre un mapa
+ * con TTL por clave; el reloj del near-cache es manual).
+ */
+class RedisSessionStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration NEAR_TTL = Duration.ofSeconds(2);
+
+    private final Map<String, byte[]> valores = new HashMap<>();
+    private final Map<String, Duration> ttls = new HashMap<>();
+    private final AtomicLong nanos = new AtomicLong();
+
+    private ValueOperations<String, byte[]> ops;
+    private RedisTemplate<String, byte[]> redis;
+    private RedisSessionStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ops = mock(ValueOperations.class);
+        redis = mock(RedisTemplate.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        doAnswer(i -> {
+            valores.put(i.getArgument(0), i.getArgument(1));
+            ttls.put(i.getArgument(0), i.getArgument(2));
+            return null;
+        }).when(ops).set(anyString(), any(byte[].class), any(Duration.class));
+        when(ops.getAndExpire(anyString(), any(Duration.class))).thenAnswer(i -> {
+            String clave = i.getArgument(0);
+            if (valores.containsKey(clave)) ttls.put(clave, i.getArgument(1));
+            return valores.get(clave);
+        });
+        when(redis.delete(anyString())).thenAnswer(i -> {
+            ttls.remove((String) i.getArgument(0));
+            return valores.remove((String) i.getArgument(0)) != null;
+        });
+
+        store = new RedisSessionStore(redis, new SimpleMeterRegistry(), TTL, NEAR_TTL, 100, nanos::get);
+    }
+
+    @Test
+    void obtenerLeeConGetexYRenuevaElTtl() {
+        store.guardar(sesion("s-1"));
+        ttls.put("tf25:sesion:s-1", Duration.ofSeconds(10));
+
+        assertEquals("42", store.obtener("s-1").orElseThrow().getExternalEventoId());
+
+        verify(ops).getAndExpire("tf25:sesion:s-1", TTL);
+        assertEquals(TTL, ttls.get("tf25:sesion:s-1"));
+    }
+
+    @Test
+    void obtenerCacheadaNoVaARedisDentroDelTtlDelNearCache() {
+        store.guardar(sesion("s-1"));
+
+        store.obtenerCacheada("s-1");
+        store.obtenerCacheada("s-1");
+        verify(ops, never()).getAndExpire(anyString(), any());
+
+        nanos.addAndGet(NEAR_TTL.plusMillis(1).toNanos());
+        store.obtenerCacheada("s-1");
+        verify(ops).getAndExpire("tf25:sesion:s-1", TTL);
+    }
+
+    @Test
+    void nearCacheDevuelveCopiasYNoElObjetoGuardado() {
+        SessionState guardada = sesion("s-1");
+        store.guardar(guardada);
+
+        // modificar el objeto del llamador (o una lectura) no cambia lo cacheado
+        guardada.setAsientosSeleccionados(Set.of("r9c9"));
+        SessionState leida = store.obtenerCacheada("s-1").orElseThrow();
+        leida.setPasoActual(PasoFlujoCompra.CONFIRMACION);
+
+        SessionState otra = store.obtenerCacheada("s-1").orElseThrow();
+        assertNotSame(leida, otra);
+        assertEquals(Set.of("r1c1"), otra.getAsientosSeleccionados());
+        assertNull(otra.getPasoActual());
+    }
+
+    @Test
+    void eliminarYClaveVencidaEnRedisInvalidanElNearCache() {
+        store.guardar(sesion("s-1"));
+        store.eliminar("s-1");
+        assertTrue(store.obtenerCacheada("s-1").isEmpty());
+
+        store.guardar(sesion("s-2"));
+        // expiró en Redis (u otra réplica la borró): la lectura fuerte lo ve y saca la copia local
+        valores.remove("tf25:sesion:s-2");
+        assertTrue(store.obtener("s-2").isEmpty());
+        assertTrue(store.obtenerCacheada("s-2").isEmpty());
+    }
+
+    private static SessionState sesion(String id) {
+        return new SessionState(id, null, "42", Set.of("r1c1"), null);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.tf25.application.usecase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.tf25.application.dto.SessionState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry registry;
+    private SessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        sessionService = new SessionService(new MemoriaSessionStore(registry, 1000, Duration.ofMinutes(5), nanos::get));
+    }
+
+    @Test
+    void sesionExpiraTrasTtlSinAccesos() {
+        SessionState s = sessionService.crearNuevaSesionParaEvento(null, "1");
+
+        avanzar(Duration.ofMinutes(4));
+        assertTrue(sessionService.obtenerSesion(s.getSessionId()).isPresent());
+
+        // el acceso anterior renueva el TTL
+        avanzar(Duration.ofMinutes(4));
+        assertTrue(sessionService.obtenerSesion(s.getSessionId()).isPresent());
+
+        avanzar(Duration.ofMinutes(6));
+        assertTrue(sessionService.obtenerSesion(s.getSessionId()).isEmpty());
+    }
+
+    @Test
+    void exponeMetricasDelCacheYSesionesActivas() {
+        SessionState s = sessionService.crearNuevaSesionParaEvento(null, "1");
+        sessionService.obtenerSesion(s.getSessionId());
+        sessionService.obtenerSesion("no-existe");
+
+        assertEquals(1.0, registry.get("tf25.sesiones.activas").gauge().value());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", MemoriaSessionStore.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", MemoriaSessionStore.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+        assertNotNull(registry.get("cache.evictions").tag("cache", MemoriaSessionStore.CACHE_NAME).functionCounter());
+    }
+
+    private void avanzar(Duration d) {
+        nanos.addAndGet(d.toNanos());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.PasoFlujoCompra;
+import org.example.tf25.application.dto.SessionState;
+import org.example.tf25.infrastructure.persistence.SessionStateCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStateCodecTest {
+
+    @Test
+    void roundTripConTodosLosCampos() {
+        SessionState original = new SessionState("s-1", "juan", "42", Set.of("r1c1", "r2c3"), PasoFlujoCompra.CONFIRMACION);
+        original.setTuvoBloqueosExitosos(true);
+
+        byte[] raw = SessionStateCodec.serializar(original);
+        SessionState leida = SessionStateCodec.deserializar(raw);
+
+        assertEquals("s-1", leida.getSessionId());
+        assertEquals("juan", leida.getUserId());
+        assertEquals("42", leida.getExternalEventoId());
+        assertEquals(Set.of("r1c1", "r2c3"), leida.getAsientosSeleccionados());
+        assertEquals(PasoFlujoCompra.CONFIRMACION, leida.getPasoActual());
+        assertTrue(leida.isTuvoBloqueosExitosos());
+        // mucho más chico que la serialización Java por defecto
+        assertTrue(raw.length < 64, "tamaño inesperado: " + raw.length);
+    }
+
+    @Test
+    void roundTripConNulos() {
+        SessionState original = new SessionState("s-2", null, null, null, null);
+
+        SessionState leida = SessionStateCodec.deserializar(SessionStateCodec.serializar(original));
+
+        assertEquals("s-2", leida.getSessionId());
+        assertNull(leida.getUserId());
+        assertNull(leida.getExternalEventoId());
+        assertNull(leida.getPasoActual());
+        assertTrue(leida.getAsientosSeleccionados().isEmpty());
+        assertFalse(leida.isTuvoBloqueosExitosos());
+    }
+
+    @Test
+    void rechazaVersionDesconocida() {
+        byte[] raw = SessionStateCodec.serializar(new SessionState("s-3", null, null, Set.of(), null));
+        raw[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> SessionStateCodec.deserializar(raw));
+    }
+
+    @Test
+    void pasoDesconocidoSeLeeComoSinPaso() {
+        byte[] raw = SessionStateCodec.serializar(new SessionState("s-4", null, null, Set.of(), PasoFlujoCompra.CONFIRMACION));
+        // flags=0 y sessionId "s-4": el paso está en el byte 2 + (2 + 3)
+        raw[7] = (byte) (PasoFlujoCompra.values().length + 3);
+
+        SessionState leida = SessionStateCodec.deserializar(raw);
+
+        assertEquals("s-4", leida.getSessionId());
+        assertNull(leida.getPasoActual());
+    }
+}
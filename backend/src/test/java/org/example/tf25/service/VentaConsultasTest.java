@@ -0,0 +1,127 @@
+package org.example.tf25.application.usecase;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.tf25.application.dto.VentaDto;
+import org.example.tf25.domain.model.Evento;
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.repository.VentaRepository;
+import org.example.tf25.infrastructure.persistence.VentaConsultas;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cantidad de consultas al listar N ventas (contadas con las estadísticas de Hibernate): no tiene que
+ * crecer con N.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(VentaConsultas.class)
+class VentaConsultasTest {
+
+    private static final int VENTAS = 40;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private VentaConsultas ventaConsultas;
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Evento rock = evento("Rock");
+        Evento jazz = evento("Jazz");
+        for (int i = 0; i < VENTAS; i++) {
+            Venta v = new Venta();
+            v.setEvento(i % 2 == 0 ? rock : jazz);
+            v.setCompradorEmail("comprador" + i + "@test.com");
+            v.setEstado(i % 4 == 0 ? VentaEstado.PENDIENTE : VentaEstado.CONFIRMADA);
+            v.setNextRetryAt(Instant.now());
+            v.setAsientosIds(new java.util.LinkedHashSet<>(Set.of("r1c" + i, "r2c" + i)));
+            v.setNombresOcupantes(new java.util.ArrayList<>(List.of("Ana", "Beto")));
+            entityManager.persist(v);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listarProyectaLaPaginaEnTresConsultas() {
+        // WHEN
+        List<VentaDto> ventas = ventaConsultas.listar((root, query, cb) -> cb.conjunction(),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")), VENTAS);
+
+        // THEN: filas + asientos + ocupantes, sin importar cuántas ventas
+        assertEquals(VENTAS, ventas.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        VentaDto primera = ventas.get(0);
+        assertEquals(2, primera.asientos().size());
+        assertEquals(List.of("Ana", "Beto"), primera.ocupantes());
+        assertNotNull(primera.eventoNombre());
+    }
+
+    @Test
+    void listarSinLimiteTraeTodasEnTresConsultas() {
+        List<VentaDto> ventas = ventaConsultas.listar((root, query, cb) -> cb.conjunction(),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+
+        assertEquals(VENTAS, ventas.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listarPaginaVaciaEsUnaSolaConsulta() {
+        Specification<Venta> ninguna = (root, query, cb) -> cb.disjunction();
+
+        assertTrue(ventaConsultas.listar(ninguna, Sort.by("id"), 10).isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listarPendientesEsUnaSolaConsulta() {
+        var pendientes = ventaConsultas.listarPorEstado(VentaEstado.PENDIENTE, 100);
+
+        assertEquals(VENTAS / 4, pendientes.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cargarEntidadesEnLoteTraeEventoYColeccionesEnBatch() {
+        // WHEN: carga de entidades (p.ej. reintentos); los EAGER van por @BatchSize
+        List<Venta> ventas = ventaRepository.findAll();
+        ventas.forEach(v -> v.getAsientosIds().size());
+
+        // THEN: ventas + eventos + asientos + ocupantes
+        assertEquals(VENTAS, ventas.size());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private Evento evento(String nombre) {
+        Evento e = new Evento();
+        e.setNombre(nombre);
+        entityManager.persist(e);
+        return e;
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.repository.VentaRepository;
+import org.example.tf25.infrastructure.messaging.VentaKafkaProducer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VentaNotificadorTest {
+
+    private VentaRepository ventaRepository;
+    private VentaKafkaProducer ventaKafkaProducer;
+    private ApplicationEventPublisher eventPublisher;
+    private VentaNotificador notificador;
+
+    @BeforeEach
+    void setUp() {
+        ventaRepository = mock(VentaRepository.class);
+        ventaKafkaProducer = mock(VentaKafkaProducer.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        RestClient restClient = mock(RestClient.class);
+        RestClient.RequestBodyUriSpec requestBodyUriSpec = mock(RestClient.RequestBodyUriSpec.class);
+        RestClient.RequestBodySpec requestBodySpec = mock(RestClient.RequestBodySpec.class, RETURNS_SELF);
+        RestClient.ResponseSpec responseSpec = mock(RestClient.ResponseSpec.class);
+
+        when(restClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        // header(String, String...) es varargs: RETURNS_SELF cubre header/body sin depender del matcher
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+
+        // Mockeamos la respuesta del proxy como nula para forzar el uso de Kafka como fallback
+        when(responseSpec.body(any(Class.class))).thenReturn(null);
+        when(ventaRepository.save(any(Venta.class))).thenAnswer(i -> i.getArgument(0));
+
+        notificador = new VentaNotificador(ventaRepository, restClient, ventaKafkaProducer, eventPublisher,
+                new PoliticaReintentos(Duration.ofSeconds(10), Duration.ofMinutes(10), 10), Duration.ofMillis(200), 0L);
+    }
+
+    @Test
+    void notificarExitoPorKafkaConfirma() {
+        // GIVEN
+        Venta venta = pendiente(0);
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertEquals(VentaEstado.CONFIRMADA, v.getEstado());
+        assertEquals(1, v.getIntentosNotificacion());
+        assertNull(v.getNextRetryAt());
+        verify(ventaRepository).save(venta);
+        verify(eventPublisher).publishEvent(new VentaConfirmadaEvent(1L, "100", Set.of("r1c1")));
+    }
+
+    @Test
+    void notificarFallaKafkaQuedaPendiente() {
+        // GIVEN
+        Venta venta = pendiente(0);
+        CompletableFuture<Void> futureFalla = new CompletableFuture<>();
+        futureFalla.completeExceptionally(new RuntimeException("Kafka down"));
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(futureFalla);
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertEquals(VentaEstado.PENDIENTE, v.getEstado());
+        assertEquals(1, v.getIntentosNotificacion());
+        assertNotNull(v.getNextRetryAt());
+        assertTrue(v.getUltimoError().contains("Kafka down"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void notificarAgotaIntentosPasaAError() {
+        // GIVEN
+        Venta venta = pendiente(9); // Próximo será el 10
+        CompletableFuture<Void> futureFalla = new CompletableFuture<>();
+        futureFalla.completeExceptionally(new RuntimeException("Kafka down"));
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(futureFalla);
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertEquals(VentaEstado.ERROR, v.getEstado());
+        assertEquals(10, v.getIntentosNotificacion());
+        assertNull(v.getNextRetryAt());
+    }
+
+    @Test
+    void notificarConEventoNoNumericoPasaAErrorSinReintentar() {
+        // GIVEN: el producer rechaza el externalEventoId (fallo permanente)
+        Venta venta = pendiente(0);
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("externalEventoId inválido: abc")));
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertEquals(VentaEstado.ERROR, v.getEstado());
+        assertEquals(1, v.getIntentosNotificacion());
+        assertNull(v.getNextRetryAt());
+        assertTrue(v.getUltimoError().startsWith("IllegalArgumentException"));
+    }
+
+    @Test
+    void notificarKafkaQueNoRespondeQuedaPendienteAlVencerElTimeout() {
+        // GIVEN: el envío nunca completa
+        Venta venta = pendiente(0);
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(new CompletableFuture<>());
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertEquals(VentaEstado.PENDIENTE, v.getEstado());
+        assertNotNull(v.getNextRetryAt());
+        assertTrue(v.getUltimoError().startsWith("TimeoutException"));
+    }
+
+    @Test
+    void notificarConConflictoDeVersionGuardaSobreLaVentaActual() {
+        // GIVEN: el usuario re-confirmó con otro email mientras se notificaba
+        Venta venta = pendiente(0);
+        Venta actual = pendiente(0);
+        actual.setCompradorEmail("nuevo@test.com");
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(ventaRepository.save(venta)).thenThrow(new ObjectOptimisticLockingFailureException(Venta.class, 1L));
+        when(ventaRepository.findById(1L)).thenReturn(Optional.of(actual));
+
+        // WHEN
+        Venta v = notificador.notificar(venta);
+
+        // THEN
+        assertSame(actual, v);
+        assertEquals(VentaEstado.CONFIRMADA, v.getEstado());
+        assertEquals(1, v.getIntentosNotificacion());
+        assertEquals("nuevo@test.com", v.getCompradorEmail());
+        verify(eventPublisher).publishEvent(new VentaConfirmadaEvent(1L, "100", Set.of("r1c1")));
+    }
+
+    private static Venta pendiente(int intentos) {
+        Venta v = new Venta();
+        v.setId(1L);
+        v.setEstado(VentaEstado.PENDIENTE);
+        v.setExternalEventoId("100");
+        v.setSessionId("s1");
+        v.setAsientosIds(Set.of("r1c1"));
+        v.setIntentosNotificacion(intentos);
+        return v;
+    }
+}
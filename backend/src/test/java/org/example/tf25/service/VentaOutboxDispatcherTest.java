@@ -0,0 +1,165 @@
+package org.example.tf25.application.usecase;
+
+import org.example.tf25.domain.model.Venta;
+import org.example.tf25.domain.model.VentaEstado;
+import org.example.tf25.domain.model.VentaOutbox;
+import org.example.tf25.domain.repository.VentaOutboxRepository;
+import org.example.tf25.domain.repository.VentaRepository;
+import org.example.tf25.infrastructure.persistence.VentaOutboxDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VentaOutboxDispatcherTest {
+
+    private VentaOutboxRepository outboxRepository;
+    private VentaRepository ventaRepository;
+    private VentaNotificador notificador;
+    private VentaOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(VentaOutboxRepository.class);
+        ventaRepository = mock(VentaRepository.class);
+        notificador = mock(VentaNotificador.class);
+        when(ventaRepository.findById(anyLong())).thenAnswer(i -> Optional.of(pendiente(i.getArgument(0))));
+        dispatcher = new VentaOutboxDispatcher(outboxRepository, ventaRepository, notificador,
+                mock(PlatformTransactionManager.class), 3, 2, Duration.ofMinutes(5), Duration.ofMillis(300));
+    }
+
+    @Test
+    void reclamaConLeaseYMarcaLasFilasDespachadas() {
+        List<VentaOutbox> lote = List.of(fila(10L, 1L), fila(11L, 2L));
+        when(outboxRepository.reclamarPendientes(any(Instant.class), eq(3))).thenReturn(lote);
+
+        Instant antes = Instant.now();
+        dispatcher.despachar();
+
+        // el lease queda puesto antes de notificar
+        lote.forEach(f -> assertTrue(f.getReclamadoHasta().isAfter(antes.plus(Duration.ofMinutes(4)))));
+        verify(notificador, times(2)).notificar(any(Venta.class));
+        verify(outboxRepository).marcarProcesados(argThat(ids -> ids.containsAll(List.of(10L, 11L)) && ids.size() == 2),
+                any(Instant.class));
+    }
+
+    @Test
+    void notificacionQueVenceElTimeoutNoSeMarcaYNoTrabaElLote() throws Exception {
+        List<VentaOutbox> lote = List.of(fila(10L, 1L), fila(11L, 2L));
+        when(outboxRepository.reclamarPendientes(any(Instant.class), eq(3))).thenReturn(lote);
+        CountDownLatch soltar = new CountDownLatch(1);
+        CountDownLatch interrumpida = new CountDownLatch(1);
+        when(notificador.notificar(any(Venta.class))).thenAnswer(i -> {
+            Venta v = i.getArgument(0);
+            if (v.getId() == 1L) {
+                try {
+                    soltar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    interrumpida.countDown();
+                    throw ex;
+                }
+            }
+            return v;
+        });
+
+        long inicio = System.nanoTime();
+        dispatcher.despachar();
+        soltar.countDown();
+
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(3));
+        verify(outboxRepository).marcarProcesados(argThat(ids -> ids.size() == 1 && ids.contains(11L)), any(Instant.class));
+        // la notificación vencida no sigue ocupando el hilo
+        assertTrue(interrumpida.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void renuevaElLeaseAntesDeUnaNotificacionQueNoEntraEnElQueQueda() {
+        dispatcher = new VentaOutboxDispatcher(outboxRepository, ventaRepository, notificador,
+                mock(PlatformTransactionManager.class), 3, 2, Duration.ofMillis(500), Duration.ofMillis(300));
+        List<VentaOutbox> lote = List.of(fila(10L, 1L), fila(11L, 2L), fila(12L, 3L));
+        when(outboxRepository.reclamarPendientes(any(Instant.class), eq(3))).thenReturn(lote, List.of());
+        when(outboxRepository.renovarReclamo(anyCollection(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(i -> ((Collection<?>) i.getArgument(0)).size());
+        when(notificador.notificar(any(Venta.class))).thenAnswer(i -> {
+            Thread.sleep(250);
+            return i.getArgument(0);
+        });
+
+        dispatcher.despachar();
+
+        // la tercera arranca a los ~250ms: con 300ms de timeout ya no entra en el lease de 500ms
+        verify(outboxRepository).renovarReclamo(argThat((Collection<Long> ids) -> ids.contains(12L)),
+                any(Instant.class), any(Instant.class));
+        verify(outboxRepository).marcarProcesados(argThat((Collection<Long> ids) -> ids.size() == 3), any(Instant.class));
+    }
+
+    @Test
+    void siNoPuedeRenovarElLeaseNoArrancaLasFilasQueFaltan() {
+        dispatcher = new VentaOutboxDispatcher(outboxRepository, ventaRepository, notificador,
+                mock(PlatformTransactionManager.class), 3, 2, Duration.ofMillis(500), Duration.ofMillis(300));
+        List<VentaOutbox> lote = List.of(fila(10L, 1L), fila(11L, 2L), fila(12L, 3L));
+        when(outboxRepository.reclamarPendientes(any(Instant.class), eq(3))).thenReturn(lote, List.of());
+        when(notificador.notificar(any(Venta.class))).thenAnswer(i -> {
+            Thread.sleep(250);
+            return i.getArgument(0);
+        });
+
+        dispatcher.despachar();
+
+        verify(notificador, times(2)).notificar(any(Venta.class));
+        verify(outboxRepository).marcarProcesados(argThat((Collection<Long> ids) -> ids.size() == 2 && !ids.contains(12L)),
+                any(Instant.class));
+    }
+
+    @Test
+    void rechazaUnTimeoutQueNoEntraEnElLease() {
+        assertThrows(IllegalArgumentException.class, () -> new VentaOutboxDispatcher(outboxRepository, ventaRepository,
+                notificador, mock(PlatformTransactionManager.class), 3, 2, Duration.ofMinutes(3), Duration.ofMinutes(3)));
+    }
+
+    @Test
+    void notificaEnParaleloSinPasarseDelLimite() {
+        List<VentaOutbox> lote = List.of(fila(10L, 1L), fila(11L, 2L), fila(12L, 3L));
+        when(outboxRepository.reclamarPendientes(any(Instant.class), eq(3))).thenReturn(lote, List.of());
+        AtomicInteger enVuelo = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+        when(notificador.notificar(any(Venta.class))).thenAnswer(i -> {
+            maximo.accumulateAndGet(enVuelo.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            enVuelo.decrementAndGet();
+            return i.getArgument(0);
+        });
+
+        dispatcher.despachar();
+
+        assertEquals(2, maximo.get());
+        verify(outboxRepository).marcarProcesados(argThat((Collection<Long> ids) -> ids.size() == 3), any(Instant.class));
+    }
+
+    private static VentaOutbox fila(Long id, Long ventaId) {
+        VentaOutbox f = new VentaOutbox(ventaId);
+        ReflectionTestUtils.setField(f, "id", id);
+        return f;
+    }
+
+    private static Venta pendiente(Long id) {
+        Venta v = new Venta();
+        v.setId(id);
+        v.setEstado(VentaEstado.PENDIENTE);
+        v.setExternalEventoId("100");
+        return v;
+    }
+}
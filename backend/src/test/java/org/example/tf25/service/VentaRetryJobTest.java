@@ -1,5 +1,6 @@
 package org.example.tf25.application.usecase;
 
+import org.example.tf25.application.dto.VentaConfirmadaEvent;
 import org.example.tf25.domain.model.Venta;
 import org.example.tf25.domain.model.VentaEstado;
 import org.example.tf25.domain.repository.VentaRepository;
@@ -8,27 +9,47 @@ import org.example.tf25.infrastructure.persistence.VentaRetryJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class VentaRetryJobTest {
 
     private VentaRepository ventaRepository;
     private VentaKafkaProducer ventaKafkaProducer;
+    private ApplicationEventPublisher eventPublisher;
     private VentaRetryJob ventaRetryJob;
 
     @BeforeEach
     void setUp() {
         ventaRepository = mock(VentaRepository.class);
         ventaKafkaProducer = mock(VentaKafkaProducer.class);
-        ventaRetryJob = new VentaRetryJob(ventaRepository, ventaKafkaProducer);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        // el envío en bloque delega en los stubs por venta de cada test
+        when(ventaKafkaProducer.enviarNotificaciones(anyList())).thenAnswer(i -> {
+            List<Venta> ventas = i.getArgument(0);
+            return ventas.stream().map(ventaKafkaProducer::enviarNotificacionVenta).toList();
+        });
+        ventaRetryJob = new VentaRetryJob(ventaRepository, ventaKafkaProducer, eventPublisher,
+                mock(PlatformTransactionManager.class),
+                new PoliticaReintentos(Duration.ofSeconds(10), Duration.ofMinutes(10), 10), 2, 2, Duration.ofMinutes(5), Duration.ofSeconds(5), 0L, 0L);
     }
 
     @Test
@@ -40,7 +61,7 @@ class VentaRetryJobTest {
         v.setAsientosIds(Set.of("r1c1"));
         v.setExternalEventoId("100");
 
-        when(ventaRepository.findTop50ByEstadoAndNextRetryAtBeforeOrderByNextRetryAtAsc(eq(VentaEstado.PENDIENTE), any(Instant.class)))
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2)))
                 .thenReturn(List.of(v));
         when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenReturn(CompletableFuture.completedFuture(null));
 
@@ -52,6 +73,7 @@ class VentaRetryJobTest {
         assertEquals(1, v.getIntentosNotificacion());
         assertNull(v.getNextRetryAt());
         verify(ventaRepository).save(v);
+        verify(eventPublisher).publishEvent(new VentaConfirmadaEvent(1L, "100", Set.of("r1c1")));
     }
 
     @Test
@@ -64,7 +86,7 @@ class VentaRetryJobTest {
         v.setExternalEventoId("100");
         v.setIntentosNotificacion(1);
 
-        when(ventaRepository.findTop50ByEstadoAndNextRetryAtBeforeOrderByNextRetryAtAsc(eq(VentaEstado.PENDIENTE), any(Instant.class)))
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2)))
                 .thenReturn(List.of(v));
         
         CompletableFuture<Void> futureFalla = new CompletableFuture<>();
@@ -78,5 +100,165 @@ class VentaRetryJobTest {
         assertEquals(VentaEstado.PENDIENTE, v.getEstado());
         assertEquals(2, v.getIntentosNotificacion());
         assertNotNull(v.getNextRetryAt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void reintentarPendientesEnviaElLoteEnParaleloYDrenaHastaLoteIncompleto() {
+        // GIVEN: un lote completo (2) con una venta que falla, y después un lote con una sola venta
+        Venta ok1 = pendiente(1L);
+        Venta falla = pendiente(2L);
+        Venta ok2 = pendiente(3L);
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2)))
+                .thenReturn(List.of(ok1, falla))
+                .thenReturn(List.of(ok2));
+
+        CompletableFuture<Void> envioLento = new CompletableFuture<>();
+        CompletableFuture<Void> futureFalla = new CompletableFuture<>();
+        futureFalla.completeExceptionally(new RuntimeException("Kafka down"));
+        when(ventaKafkaProducer.enviarNotificacionVenta(ok1)).thenReturn(envioLento);
+        when(ventaKafkaProducer.enviarNotificacionVenta(falla)).thenReturn(futureFalla);
+        when(ventaKafkaProducer.enviarNotificacionVenta(ok2)).thenReturn(CompletableFuture.completedFuture(null));
+        // el primer envío termina después de que se disparó el segundo
+        CompletableFuture.runAsync(() -> envioLento.complete(null), CompletableFuture.delayedExecutor(50, java.util.concurrent.TimeUnit.MILLISECONDS));
+
+        // WHEN
+        ventaRetryJob.reintentarPendientes();
+
+        // THEN
+        assertEquals(VentaEstado.CONFIRMADA, ok1.getEstado());
+        assertEquals(VentaEstado.PENDIENTE, falla.getEstado());
+        assertNotNull(falla.getNextRetryAt());
+        assertEquals(VentaEstado.CONFIRMADA, ok2.getEstado());
+        verify(ventaRepository, times(2)).reclamarPendientes(any(Instant.class), eq(2));
+        verify(ventaRepository).save(falla);
+        verify(eventPublisher, times(2)).publishEvent(any(VentaConfirmadaEvent.class));
+    }
+
+    @Test
+    void reclamoPoneElLeaseYLoSueltaAlGuardar() {
+        // GIVEN
+        Venta v = pendiente(1L);
+        v.setNextRetryAt(Instant.now().minusSeconds(1));
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2))).thenReturn(List.of(v));
+        when(ventaKafkaProducer.enviarNotificacionVenta(v)).thenAnswer(i -> {
+            // al momento de enviar, la venta ya está reclamada hasta ahora + lease
+            assertTrue(v.estaReclamada(Instant.now().plus(Duration.ofMinutes(4))));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // WHEN
+        ventaRetryJob.reintentarPendientes();
+
+        // THEN
+        assertEquals(VentaEstado.CONFIRMADA, v.getEstado());
+        assertNull(v.getNextRetryAt());
+        assertNull(v.getReclamadaHasta());
+    }
+
+    @Test
+    void conflictoDeVersionAplicaElResultadoSobreLaVentaActual() {
+        // GIVEN: mientras se enviaba, otra escritura cambió el email de la venta
+        Venta v = pendiente(1L);
+        v.setNextRetryAt(Instant.now().minusSeconds(1));
+        Venta actual = pendiente(1L);
+        actual.setCompradorEmail("nuevo@test.com");
+        actual.setNextRetryAt(v.getNextRetryAt());
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2))).thenReturn(List.of(v));
+        when(ventaKafkaProducer.enviarNotificacionVenta(v)).thenReturn(CompletableFuture.completedFuture(null));
+        when(ventaRepository.save(v)).thenThrow(new ObjectOptimisticLockingFailureException(Venta.class, 1L));
+        when(ventaRepository.findById(1L)).thenReturn(Optional.of(actual));
+
+        // WHEN
+        ventaRetryJob.reintentarPendientes();
+
+        // THEN
+        assertEquals(VentaEstado.CONFIRMADA, actual.getEstado());
+        assertEquals(1, actual.getIntentosNotificacion());
+        assertNull(actual.getNextRetryAt());
+        assertEquals("nuevo@test.com", actual.getCompradorEmail());
+        verify(ventaRepository).save(actual);
+    }
+
+    @Test
+    void ventaConUltimoErrorPermanenteNoSeReenvia() {
+        // GIVEN
+        Venta v = pendiente(1L);
+        v.setIntentosNotificacion(2);
+        v.setUltimoError("IllegalArgumentException: externalEventoId inválido: abc");
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(2))).thenReturn(List.of(v));
+
+        // WHEN
+        ventaRetryJob.reintentarPendientes();
+
+        // THEN
+        assertEquals(VentaEstado.ERROR, v.getEstado());
+        assertEquals(2, v.getIntentosNotificacion());
+        verify(ventaKafkaProducer, never()).enviarNotificacionVenta(any());
+        verify(ventaRepository).save(v);
+    }
+
+    @Test
+    void renuevaElLeaseCuandoLaProximaVentanaNoEntra() {
+        ventaRetryJob = jobConLeaseCorto();
+        List<Venta> lote = List.of(pendiente(1L), pendiente(2L), pendiente(3L), pendiente(4L));
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(4))).thenReturn(lote, List.of());
+        when(ventaRepository.renovarReclamo(anyCollection(), any(Instant.class), any(Instant.class)))
+                .thenAnswer(i -> ((Collection<?>) i.getArgument(0)).size());
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenAnswer(i -> enviadoEn(250));
+
+        ventaRetryJob.reintentarPendientes();
+
+        // la segunda ventana arranca a los ~250ms: con 300ms por ventana ya no entra en el lease de 500ms
+        verify(ventaRepository).renovarReclamo(argThat((Collection<Long> ids) -> ids.containsAll(List.of(3L, 4L))),
+                any(Instant.class), any(Instant.class));
+        lote.forEach(v -> assertEquals(VentaEstado.CONFIRMADA, v.getEstado()));
+        verify(ventaRepository, times(4)).save(any(Venta.class));
+    }
+
+    @Test
+    void siNoPuedeRenovarElLeaseNoEnviaNiGuardaLoQueFalta() {
+        ventaRetryJob = jobConLeaseCorto();
+        Venta v3 = pendiente(3L);
+        Venta v4 = pendiente(4L);
+        when(ventaRepository.reclamarPendientes(any(Instant.class), eq(4)))
+                .thenReturn(List.of(pendiente(1L), pendiente(2L), v3, v4), List.of());
+        when(ventaKafkaProducer.enviarNotificacionVenta(any(Venta.class))).thenAnswer(i -> enviadoEn(250));
+
+        ventaRetryJob.reintentarPendientes();
+
+        verify(ventaKafkaProducer, times(2)).enviarNotificacionVenta(any(Venta.class));
+        verify(ventaRepository, never()).save(v3);
+        verify(ventaRepository, never()).save(v4);
+        verify(ventaRepository, times(2)).save(any(Venta.class));
+    }
+
+    @Test
+    void rechazaUnLeaseQueNoCubreUnaVentana() {
+        // 125s de send-timeout efectivo (delivery 120s + margen) + 60s de max.block.ms > 2m
+        assertThrows(IllegalArgumentException.class, () -> new VentaRetryJob(ventaRepository, ventaKafkaProducer,
+                eventPublisher, mock(PlatformTransactionManager.class),
+                new PoliticaReintentos(Duration.ofSeconds(10), Duration.ofMinutes(10), 10),
+                200, 16, Duration.ofMinutes(2), Duration.ZERO, 120_000L, 60_000L));
+    }
+
+    private VentaRetryJob jobConLeaseCorto() {
+        return new VentaRetryJob(ventaRepository, ventaKafkaProducer, eventPublisher,
+                mock(PlatformTransactionManager.class),
+                new PoliticaReintentos(Duration.ofSeconds(10), Duration.ofMinutes(10), 10),
+                4, 2, Duration.ofMillis(500), Duration.ofMillis(300), 0L, 0L);
+    }
+
+    private static CompletableFuture<Void> enviadoEn(long ms) {
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(ms, TimeUnit.MILLISECONDS));
+    }
+
+    private static Venta pendiente(Long id) {
+        Venta v = new Venta();
+        v.setId(id);
+        v.setEstado(VentaEstado.PENDIENTE);
+        v.setAsientosIds(Set.of("r1c" + id));
+        v.setExternalEventoId("100");
+        return v;
     }
 }
@@ -8,6 +8,7 @@ import io.ktor.client.request.post
 import io.ktor.client.request.setBody
 import io.ktor.http.ContentType
 import io.ktor.http.contentType
+import kotlinx.coroutines.delay
 import kotlinx.serialization.Serializable
 import org.example.project.model.Asiento
 import org.example.project.model.Venta
@@ -65,11 +66,24 @@ class VentaRepository(private val client: HttpClient) {
             contentType(ContentType.Application.Json)
             setBody(ConfirmarVentaRequest(email, ocupantes))
         }
-        if (response.status.value == 200) {
-            return response.body()
-        } else {
+        if (response.status.value != 200) {
             throw Exception("Error al confirmar venta: ${response.status}")
         }
+        // El backend registra la venta PENDIENTE y la notifica a la cátedra en segundo plano:
+        // consultamos el estado un rato antes de devolver (si sigue PENDIENTE, queda en el historial)
+        var venta = response.body<ConfirmarVentaResponse>()
+        var intentos = 0
+        while (venta.estado == "PENDIENTE" && intentos < 10) {
+            delay(1000)
+            venta = estadoVenta(venta.ventaId) ?: return venta
+            intentos++
+        }
+        return venta
+    }
+
+    suspend fun estadoVenta(ventaId: Long): ConfirmarVentaResponse? {
+        val response = client.get("$SERVER_URL/api/ventas/$ventaId/estado")
+        return if (response.status.value == 200) response.body() else null
     }
 
     suspend fun getVentas(email: String? = null): List<Venta> {
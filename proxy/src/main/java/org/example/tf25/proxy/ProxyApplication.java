@@ -4,9 +4,11 @@ import org.example.tf25.proxy.config.CatedraProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableConfigurationProperties(CatedraProperties.class)
+@EnableScheduling
 public class ProxyApplication {
 
     public static void main(String[] args) {
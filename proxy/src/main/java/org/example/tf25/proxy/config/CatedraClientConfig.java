@@ -4,8 +4,10 @@ import org.example.tf25.proxy.service.CatedraAuthService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
+
+import java.util.concurrent.atomic.AtomicLong;
 // Eliminamos dependencia de Authorization entrante; el Proxy usará su propio token
 
 @Configuration
@@ -16,14 +18,11 @@ public class CatedraClientConfig {
     @Bean
     public RestClient catedraRestClient(
             RestClient.Builder builder,
+            ClientHttpRequestFactory factory,
             @Value("${tf25.catedra.base-url}") String baseUrl,
             CatedraAuthService authService,
             CatedraProperties catedraProperties
     ) {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5_000);
-        factory.setReadTimeout(5_000);
-
         return builder
                 .baseUrl(baseUrl)
                 .requestFactory(factory)
@@ -36,9 +35,13 @@ public class CatedraClientConfig {
 
                     if (!isLoginCall) {
                         try {
-                            String token = authService.getBearerToken();
-                            if (token != null && !token.isBlank()) {
-                                request.getHeaders().setBearerAuth(token);
+                            CatedraAuthService.TokenAdjunto token = authService.getBearerToken();
+                            if (token.valor() != null && !token.valor().isBlank()) {
+                                request.getHeaders().setBearerAuth(token.valor());
+                                // el llamador necesita la generación de este token (no la vigente) para el refresh tras un 401
+                                if (request.getAttributes().get(CatedraAuthService.ATRIBUTO_GENERACION) instanceof AtomicLong generacion) {
+                                    generacion.set(token.generacion());
+                                }
                             }
                         } catch (Exception ignored) {
                             // Si no hay token configurado aún, dejamos pasar; el servicio puede manejar el 401
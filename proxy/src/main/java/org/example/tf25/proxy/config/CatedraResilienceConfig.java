@@ -0,0 +1,74 @@
+package org.example.tf25.proxy.config;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+
+/**
+ * Registros de circuit breakers y bulkheads para las llamadas Proxy→cátedra.
+ * Cada operación (ver {@link org.example.tf25.proxy.service.CatedraResilience.Operacion}) obtiene
+ * su propia instancia por nombre; las métricas salen por Micrometer con el tag {@code name}.
+ */
+@Configuration
+public class CatedraResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry catedraCircuitBreakerRegistry(
+            @Value("${tf25.catedra.resilience.circuit-breaker.failure-rate-threshold:50}") float failureRate,
+            @Value("${tf25.catedra.resilience.circuit-breaker.slow-call-threshold:3s}") Duration slowCall,
+            @Value("${tf25.catedra.resilience.circuit-breaker.sliding-window-size:20}") int ventana,
+            @Value("${tf25.catedra.resilience.circuit-breaker.minimum-calls:10}") int minimoLlamadas,
+            @Value("${tf25.catedra.resilience.circuit-breaker.wait-in-open:10s}") Duration esperaAbierto,
+            @Value("${tf25.catedra.resilience.circuit-breaker.half-open-calls:3}") int llamadasSemiAbierto,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRate)
+                .slowCallRateThreshold(failureRate)
+                .slowCallDurationThreshold(slowCall)
+                .slidingWindowSize(ventana)
+                .minimumNumberOfCalls(minimoLlamadas)
+                .waitDurationInOpenState(esperaAbierto)
+                .permittedNumberOfCallsInHalfOpenState(llamadasSemiAbierto)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Solo cuentan como fallo la indisponibilidad (I/O, timeouts) y los 5xx: un 4xx es
+                // una respuesta válida de la cátedra (y el 401 dispara el refresh de token).
+                .recordException(CatedraResilienceConfig::esFalloDeDisponibilidad)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        meterRegistry.ifAvailable(mr -> TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(mr));
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry catedraBulkheadRegistry(
+            @Value("${tf25.catedra.resilience.bulkhead.max-concurrent:20}") int maxConcurrentes,
+            @Value("${tf25.catedra.resilience.bulkhead.max-wait:0ms}") Duration esperaMaxima,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentes)
+                .maxWaitDuration(esperaMaxima)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        meterRegistry.ifAvailable(mr -> TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(mr));
+        return registry;
+    }
+
+    static boolean esFalloDeDisponibilidad(Throwable t) {
+        if (t instanceof ResourceAccessException) return true;
+        return t instanceof RestClientResponseException r && r.getStatusCode().is5xxServerError();
+    }
+}
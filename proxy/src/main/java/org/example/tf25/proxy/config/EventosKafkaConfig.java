@@ -0,0 +1,94 @@
+package org.example.tf25.proxy.config;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener por lotes para {@code eventos-actualizacion}: entre polls el contenedor espera {@code ventana-ms}
+ * para que una ráfaga de cambios del mismo evento llegue en un solo lote (y un solo sync al backend).
+ * Los offsets se commitean a mano recién cuando el backend confirma; si falla, el lote se reintenta con backoff.
+ */
+@Configuration
+public class EventosKafkaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosKafkaConfig.class);
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> eventosBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaAdmin kafkaAdmin,
+            @Value("${kafka.topic.eventos}") String topic,
+            @Value("${tf25.kafka.eventos.ventana-ms:500}") long ventanaMs,
+            @Value("${tf25.kafka.eventos.max-poll-records:500}") int maxPollRecords,
+            @Value("${tf25.kafka.eventos.max-concurrency:8}") int maxConcurrencia,
+            @Value("${tf25.kafka.eventos.retry.max-interval:30s}") Duration maxIntervalo,
+            @Value("${tf25.kafka.eventos.retry.max-elapsed:10m}") Duration maxReintentando
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        // hereda spring.kafka.* (deserializers, group, executor de hilos virtuales, ...)
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrenciaPorParticiones(kafkaAdmin, topic, maxConcurrencia));
+
+        ContainerProperties props = factory.getContainerProperties();
+        props.setAckMode(ContainerProperties.AckMode.MANUAL);
+        props.setIdleBetweenPolls(ventanaMs);
+        Properties consumer = new Properties();
+        consumer.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        consumer.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.setKafkaConsumerProperties(consumer);
+
+        // backend caído o con eventos en ERROR: se reintenta el lote entero; agotado el plazo, se loguea y se sigue (el próximo
+        // cambio del evento o el sync periódico del backend lo ponen al día)
+        ExponentialBackOff backOff = new ExponentialBackOff(1_000, 2.0);
+        backOff.setMaxInterval(maxIntervalo.toMillis());
+        backOff.setMaxElapsedTime(maxReintentando.toMillis());
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                (record, ex) -> log.error("Kafka: se descarta cambio de evento tras reintentos: value={} ({})",
+                        record.value(), ex.toString()),
+                backOff));
+        return factory;
+    }
+
+    /** Un consumidor por partición (acotado); si no se puede consultar el broker al arrancar, uno solo. */
+    private static int concurrenciaPorParticiones(KafkaAdmin kafkaAdmin, String topic, int maxConcurrencia) {
+        AdminClient admin = null;
+        try {
+            admin = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+            TopicDescription descripcion = admin.describeTopics(List.of(topic))
+                    .allTopicNames()
+                    .get(5, TimeUnit.SECONDS)
+                    .get(topic);
+            int particiones = descripcion.partitions().size();
+            int concurrencia = Math.max(1, Math.min(particiones, maxConcurrencia));
+            log.info("Kafka: topic {} con {} particiones; concurrencia del listener={}", topic, particiones, concurrencia);
+            return concurrencia;
+        } catch (Exception e) {
+            log.warn("Kafka: no se pudo consultar particiones de {} ({}); concurrencia del listener=1", topic, e.toString());
+            return 1;
+        } finally {
+            // close() sin plazo espera default.api.timeout.ms (60s) a los requests pendientes si el broker no está:
+            // el arranque no tiene por qué esperarlo
+            if (admin != null) admin.close(Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.tf25.proxy.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis local del proxy (spring.data.redis.*): locks de asientos y canal de deltas compartido con el backend.
+ * Como {@link CatedraRedisConfig} define su propio RedisConnectionFactory, la autoconfiguración de Spring
+ * se retira; por eso la conexión local se declara acá y se marca @Primary para las inyecciones sin qualifier.
+ */
+@Configuration
+public class LocalRedisConfig {
+
+    @Bean
+    @Primary
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties props) {
+        RedisStandaloneConfiguration cfg = new RedisStandaloneConfiguration(props.getHost(), props.getPort());
+        cfg.setDatabase(props.getDatabase());
+        if (props.getPassword() != null) {
+            cfg.setPassword(props.getPassword());
+        }
+        return new LettuceConnectionFactory(cfg);
+    }
+
+    @Bean
+    @Primary
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        if (hilosVirtuales) {
+            // el contenedor lanza un hilo por mensaje; Spring Boot no lo configura porque el bean es nuestro
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("redis-listener-");
+            executor.setVirtualThreads(true);
+            container.setTaskExecutor(executor);
+        }
+        return container;
+    }
+}
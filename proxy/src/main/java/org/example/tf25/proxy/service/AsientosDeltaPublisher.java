@@ -0,0 +1,49 @@
+package org.example.tf25.proxy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Publica cambios de estado de asientos en el Redis local para el stream SSE del backend.
+ * <ul>
+ *   <li>Canal: {@code tf25:asientos:{eventId}}, mensaje {@code seq|seatId|ESTADO}.</li>
+ *   <li>{@code seq} sale de INCR sobre {@code tf25:asientos:seq:{eventId}} dentro del mismo script que el
+ *       PUBLISH, así los mensajes de un evento llegan ordenados aunque publiquen proxy y backend.</li>
+ * </ul>
+ * Un error al publicar nunca corta el lock/venta: el cliente lo recupera con un resync del mapa.
+ */
+@Service
+public class AsientosDeltaPublisher {
+    private static final Logger log = LoggerFactory.getLogger(AsientosDeltaPublisher.class);
+
+    public static final String LIBRE = "LIBRE";
+    public static final String BLOQUEADO = "BLOQUEADO";
+    public static final String VENDIDO = "VENDIDO";
+
+    private static final DefaultRedisScript<Long> PUBLICAR = new DefaultRedisScript<>(
+            "local seq = redis.call('incr', KEYS[1]) " +
+            "redis.call('publish', KEYS[2], seq .. '|' .. ARGV[1] .. '|' .. ARGV[2]) " +
+            "return seq",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+
+    public AsientosDeltaPublisher(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    public void publicar(String eventId, String seatId, String estado) {
+        try {
+            redis.execute(PUBLICAR,
+                    List.of("tf25:asientos:seq:" + eventId, "tf25:asientos:" + eventId),
+                    seatId, estado);
+        } catch (Exception ex) {
+            log.debug("No se pudo publicar delta {} {} {}: {}", eventId, seatId, estado, ex.toString());
+        }
+    }
+}
@@ -1,13 +1,10 @@
 package org.example.tf25.proxy.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.example.tf25.proxy.dto.AsientoRemotoDto;
-import org.example.tf25.proxy.dto.catedra.CatedraRedisAsientoDto;
-import org.example.tf25.proxy.dto.catedra.CatedraRedisEventoDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -20,90 +17,54 @@ public class AsientosProxyService {
 
     private static final Logger log = LoggerFactory.getLogger(AsientosProxyService.class);
 
-    private final StringRedisTemplate catedraRedis;
-    private final StringRedisTemplate localRedis;
-    private final ObjectMapper objectMapper;
+    private final CatedraEventoSnapshotCache snapshotCache;
+    private final LockService lockService;
+    // pedidos simultáneos del mismo evento (p.ej. al abrir la venta) comparten una sola construcción del mapa
+    private final SingleFlight<String, List<AsientoRemotoDto>> mapasEnCurso;
 
-    public AsientosProxyService(@Qualifier("catedraRedisTemplate") StringRedisTemplate catedraRedis,
-                                StringRedisTemplate localRedis,
-                                ObjectMapper objectMapper) {
-        this.catedraRedis = catedraRedis;
-        this.localRedis = localRedis;
-        this.objectMapper = objectMapper;
+    public AsientosProxyService(CatedraEventoSnapshotCache snapshotCache,
+                                LockService lockService,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        this.snapshotCache = snapshotCache;
+        this.lockService = lockService;
+        this.mapasEnCurso = new SingleFlight<>("asientos", meterRegistry.getIfAvailable());
     }
 
     public List<AsientoRemotoDto> obtenerAsientos(String externalEventoId) {
         if (externalEventoId == null || externalEventoId.isBlank()) {
             return List.of();
         }
+        return mapasEnCurso.ejecutar(externalEventoId, () -> construirMapa(externalEventoId));
+    }
+
+    private List<AsientoRemotoDto> construirMapa(String externalEventoId) {
         List<AsientoRemotoDto> result = new ArrayList<>();
         Set<String> processedSeatIds = new HashSet<>();
 
-        // 1) Intentar cargar desde Redis de la cátedra
-        String key = "evento_" + externalEventoId;
-        try {
-            String json = catedraRedis.opsForValue().get(key);
-            if (json != null && !json.isBlank()) {
-                CatedraRedisEventoDto payload = objectMapper.readValue(json, CatedraRedisEventoDto.class);
-                if (payload != null && payload.asientos() != null) {
-                    for (CatedraRedisAsientoDto a : payload.asientos()) {
-                        if (a == null || a.fila() == null || a.columna() == null || a.estado() == null) {
-                            continue;
-                        }
-                        String estadoRemoto = a.estado();
-                        String estadoLocal;
-                        
-                        // Normalizamos estados comunes de la cátedra
-                        if (estadoRemoto == null) continue;
-                        String e = estadoRemoto.trim().toUpperCase();
-                        
-                        if (e.contains("BLOQ") || e.contains("RESERV")) {
-                            estadoLocal = "Bloqueado";
-                        } else if (e.contains("VEND") || e.contains("OCUP")) {
-                            estadoLocal = "Vendido";
-                        } else if (e.contains("LIBR") || e.contains("DISP")) {
-                            // Si está libre, no lo agregamos a la lista de ocupados
-                            continue;
-                        } else {
-                            // Por las dudas, si es cualquier otra cosa que no sea LIBRE, lo marcamos como bloqueado
-                            estadoLocal = "Bloqueado";
-                        }
-                        
-                        String id = "r" + a.fila() + "c" + a.columna();
-                        result.add(new AsientoRemotoDto(id, a.fila(), a.columna(), estadoLocal));
-                        processedSeatIds.add(id);
-                    }
-                }
-            }
-        } catch (Exception ex) {
-            log.debug("Proxy: error consultando Redis cátedra para evento {}: {}", externalEventoId, ex.toString());
+        // 1) Estado de la cátedra desde el snapshot en memoria (ya parseado y normalizado)
+        for (AsientoRemotoDto a : snapshotCache.ocupados(externalEventoId)) {
+            result.add(a);
+            processedSeatIds.add(a.id());
         }
 
-        // 2) Mezclar con locks locales (Option A recomendada)
+        // 2) Mezclar con locks locales (Option A recomendada), leídos del índice por evento
         try {
-            Set<String> localLockKeys = localRedis.keys("lock:" + externalEventoId + ":*");
-            if (localLockKeys != null) {
-                for (String lockKey : localLockKeys) {
-                    // lockKey es "lock:eventId:seatId"
-                    String[] parts = lockKey.split(":");
-                    if (parts.length == 3) {
-                        String seatId = parts[2];
-                        if (!processedSeatIds.contains(seatId)) {
-                            // Si no estaba en cátedra, lo agregamos como Bloqueado
-                            // Necesitamos fila/columna, que sacamos del seatId (formato rNcM)
-                            parseAsientoId(seatId).ifPresent(pos -> {
-                                result.add(new AsientoRemotoDto(seatId, pos.fila(), pos.columna(), "Bloqueado"));
-                                processedSeatIds.add(seatId);
-                            });
-                        }
-                    }
+            for (String seatId : lockService.lockedSeats(externalEventoId)) {
+                if (!processedSeatIds.contains(seatId)) {
+                    // Si no estaba en cátedra, lo agregamos como Bloqueado
+                    // Necesitamos fila/columna, que sacamos del seatId (formato rNcM)
+                    parseAsientoId(seatId).ifPresent(pos -> {
+                        result.add(new AsientoRemotoDto(seatId, pos.fila(), pos.columna(), "Bloqueado"));
+                        processedSeatIds.add(seatId);
+                    });
                 }
             }
         } catch (Exception ex) {
             log.debug("Proxy: error consultando locks locales para evento {}: {}", externalEventoId, ex.toString());
         }
 
-        return result;
+        // inmutable: la misma lista se entrega a todos los pedidos coalescidos
+        return List.copyOf(result);
     }
 
     private java.util.Optional<AsientoPosicion> parseAsientoId(String id) {
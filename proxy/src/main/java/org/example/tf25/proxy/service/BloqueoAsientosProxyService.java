@@ -5,6 +5,7 @@ import org.example.tf25.proxy.dto.RespuestaBloqueoAsientosRemotaDto;
 import org.example.tf25.proxy.dto.ResultadoBloqueoAsientoRemotoDto;
 import org.example.tf25.proxy.dto.catedra.AsientoBloqueadoRemoto;
 import org.example.tf25.proxy.dto.catedra.AsientoPosicionRemota;
+import org.example.tf25.proxy.service.dto.ResultadoLockAsientos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -12,10 +13,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,13 +33,16 @@ public class BloqueoAsientosProxyService {
     private final RestClient catedraRestClient;
     private final CatedraAuthService authService;
     private final LockService lockService;
+    private final CatedraResilience resilience;
 
     public BloqueoAsientosProxyService(@Qualifier("catedraRestClient") RestClient catedraRestClient,
                                        CatedraAuthService authService,
-                                       LockService lockService) {
+                                       LockService lockService,
+                                       CatedraResilience resilience) {
         this.catedraRestClient = catedraRestClient;
         this.authService = authService;
         this.lockService = lockService;
+        this.resilience = resilience;
     }
 
     public RespuestaBloqueoAsientosRemotaDto bloquearAsientos(PeticionBloqueoAsientosRemotaDto peticion) {
@@ -59,159 +66,169 @@ public class BloqueoAsientosProxyService {
             );
         }
 
-        // 2) Parsear ids a posiciones válidas y pre-chequear conflictos locales (Redis)
+        // 2) Parsear ids a posiciones válidas
         List<String> idsValidos = new ArrayList<>();
-        List<AsientoPosicionRemota> posiciones = new ArrayList<>();
-        List<ResultadoBloqueoAsientoRemotoDto> resultadosParciales = new ArrayList<>();
-        Set<String> yaOkPorMismaSesion = new HashSet<>();
+        Map<String, AsientoPosicionRemota> posicionPorId = new HashMap<>();
+        List<ResultadoBloqueoAsientoRemotoDto> resultadosFinales = new ArrayList<>();
 
         for (String asientoId : peticion.asientosIds()) {
             var posOpt = parseAsientoId(asientoId);
             if (posOpt.isEmpty()) {
-                resultadosParciales.add(new ResultadoBloqueoAsientoRemotoDto(asientoId, "ERROR", "Formato de asiento inválido"));
+                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(asientoId, "ERROR", "Formato de asiento inválido"));
                 continue;
             }
+            if (posicionPorId.putIfAbsent(asientoId, posOpt.get()) == null) {
+                idsValidos.add(asientoId);
+            }
+        }
 
-            // Pre-check de lock
-            var ownerOpt = lockService.whoLocks(externalEventoId, asientoId);
-            if (ownerOpt.isPresent()) {
-                String owner = ownerOpt.get();
-                if (!owner.equals(sessionId)) {
-                    // conflicto con otra sesión
-                    resultadosParciales.add(new ResultadoBloqueoAsientoRemotoDto(asientoId, "CONFLICTO", "Bloqueado por otra sesión"));
-                    continue;
+        // 3) Pre-check + reserva local todo-o-nada (un solo script en Redis). Si otra sesión tiene
+        //    alguno de los asientos no se toma ninguno y no se molesta a la cátedra.
+        ResultadoLockAsientos reserva = lockService.lockSeatsAtomic(externalEventoId, sessionId, idsValidos);
+        if (!reserva.adquirido()) {
+            for (ResultadoLockAsientos.Asiento a : reserva.asientos()) {
+                if (a.estado() == ResultadoLockAsientos.Estado.CONFLICTO) {
+                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(a.seatId(), "CONFLICTO", "Bloqueado por otra sesión"));
                 } else {
-                    // idempotente: ya lo tiene esta sesión → marcar OK y refrescar TTL
-                    lockService.lockSeat(externalEventoId, sessionId, asientoId);
-                    resultadosParciales.add(new ResultadoBloqueoAsientoRemotoDto(asientoId, "OK", null));
-                    yaOkPorMismaSesion.add(asientoId);
-                    continue;
+                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(a.seatId(), "ERROR",
+                            "No se bloqueó: otros asientos del pedido están bloqueados por otra sesión"));
                 }
             }
+            return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+        }
 
-            // libre localmente → considerar para invocar a cátedra
-            idsValidos.add(asientoId);
-            posiciones.add(posOpt.get());
+        // idempotente: los que ya eran de esta sesión quedan OK (el script renovó su TTL)
+        for (String id : reserva.seatIds(ResultadoLockAsientos.Estado.YA_PROPIO)) {
+            resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "OK", null));
         }
 
-        // 3) Si no hay nada para pedir a cátedra, devolver lo parcial
-        List<ResultadoBloqueoAsientoRemotoDto> resultadosFinales = new ArrayList<>(resultadosParciales);
-        if (posiciones.isEmpty()) {
+        // 4) Solo los recién reservados se piden a la cátedra
+        List<String> reservados = reserva.seatIds(ResultadoLockAsientos.Estado.OK);
+        if (reservados.isEmpty()) {
             return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
         }
-
+        List<AsientoPosicionRemota> posiciones = reservados.stream().map(posicionPorId::get).toList();
         var body = new org.example.tf25.proxy.dto.catedra.PeticionBloqueoAsientosRemotaDto(eventoId, sessionId, posiciones);
 
+        // Lo que la cátedra no confirme se devuelve al final (sin publicar LIBRE: nunca se anunció BLOQUEADO)
+        Set<String> confirmados = new HashSet<>();
+        // generación del token que adjuntó el interceptor: un 401 tardío no invalida un token ya renovado
+        AtomicLong generacionToken = new AtomicLong();
         try {
-            var respuestaCatedra = catedraRestClient.post()
-                    .uri("/api/endpoints/v1/bloquear-asientos")
-                    .header("X-Session-Id", sessionId)
-                    .body(body)
-                    .retrieve()
-                    .body(org.example.tf25.proxy.dto.catedra.RespuestaBloqueoAsientosRemotaDto.class);
-
-            if (respuestaCatedra != null) {
-                log.info("Proxy: respuesta de bloqueo de cátedra: resultado={}, descripcion={}, asientos={}", 
-                        respuestaCatedra.resultado(), respuestaCatedra.descripcion(), respuestaCatedra.asientos());
-                
-                var lista = respuestaCatedra.asientos();
-                boolean resultadoOk = respuestaCatedra.resultado();
-                String descripcion = respuestaCatedra.descripcion();
-
-                if (lista != null && !lista.isEmpty()) {
-                    for (AsientoBloqueadoRemoto a : lista) {
-                        String id = "r" + a.fila() + "c" + a.columna();
-                        String estadoUpstreamRaw = a.estado();
-                        String estadoUpstream = estadoUpstreamRaw != null ? estadoUpstreamRaw.trim() : null;
-                        
-                        log.debug("Proxy: procesando asiento {} con estado upstream: '{}'", id, estadoUpstream);
-                        
-                        String estado = mapEstadoCatedraRobusto(estadoUpstream);
-                        boolean esProblema = "CONFLICTO".equals(estado) || "INVALIDO".equals(estado) || "DESCONOCIDO".equals(estado);
-                        
-                        // Si la cátedra dice que no es OK a nivel global, propagamos su descripción como mensaje de error
-                        String mensaje = (!resultadoOk && esProblema && descripcion != null && !descripcion.isBlank()) ? descripcion : null;
-                        
-                        resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, estado, mensaje));
-                        if ("OK".equals(estado)) {
-                            lockService.lockSeat(externalEventoId, sessionId, id);
-                        }
-                    }
-                } else {
-                    // No hay lista de asientos; si hay descripcion, propagarla
-                    for (String id : idsValidos) {
-                        resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR",
-                                (descripcion != null && !descripcion.isBlank()) ? descripcion : "Sin respuesta de cátedra"));
+            try {
+                var respuestaCatedra = llamarCatedra(sessionId, body, generacionToken);
+                agregarResultadosCatedra(respuestaCatedra, reservados, resultadosFinales, confirmados);
+                return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+            } catch (org.springframework.web.client.RestClientResponseException ex) {
+                // Si es 401, refrescar token y reintentar una vez
+                if (ex.getRawStatusCode() == 401) {
+                    log.info("Proxy: 401 en bloqueo; refrescando token y reintentando una vez...");
+                    try {
+                        authService.refreshToken(generacionToken.get());
+                        var respuestaCatedra = llamarCatedra(sessionId, body, generacionToken);
+                        agregarResultadosCatedra(respuestaCatedra, reservados, resultadosFinales, confirmados);
+                        return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+                    } catch (org.springframework.web.client.RestClientResponseException ex2) {
+                        log.warn("Proxy: reintento tras refresh falló con HTTP {}: {}", ex2.getRawStatusCode(), ex2.getResponseBodyAsString());
+                    } catch (org.springframework.web.client.RestClientException ex2) {
+                        log.warn("Proxy: reintento tras refresh falló por comunicación", ex2);
                     }
                 }
-            } else {
-                // sin respuesta: marcar ERROR para los enviados a cátedra
-                for (String id : idsValidos) {
-                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Sin respuesta de cátedra"));
+                log.warn("Proxy: error HTTP {} al bloquear asientos en cátedra: {}", ex.getRawStatusCode(), ex.getResponseBodyAsString());
+                for (String id : reservados) {
+                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Error HTTP " + ex.getRawStatusCode() + " en cátedra"));
+                }
+                return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+            } catch (CatedraResilience.CatedraNoDisponibleException ex) {
+                // Rechazo local (circuito abierto o sin cupo): los locks reservados se liberan en el finally
+                log.warn("Proxy: bloqueo rechazado sin llamar a cátedra: {}", ex.getMessage());
+                for (String id : reservados) {
+                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Cátedra no disponible temporalmente"));
                 }
+                return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+            } catch (org.springframework.web.client.RestClientException ex) {
+                log.warn("Proxy: error de comunicación con cátedra al bloquear asientos", ex);
+                for (String id : reservados) {
+                    resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Error de comunicación con cátedra"));
+                }
+                return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
+            }
+        } finally {
+            List<String> aConfirmar = reservados.stream().filter(confirmados::contains).toList();
+            List<String> aLiberar = reservados.stream().filter(id -> !confirmados.contains(id)).toList();
+            lockService.publishLocked(externalEventoId, aConfirmar);
+            if (!aLiberar.isEmpty()) {
+                lockService.releaseReservations(externalEventoId, sessionId, aLiberar);
             }
+        }
+    }
 
-            return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
-        } catch (org.springframework.web.client.RestClientResponseException ex) {
-            // Si es 401, refrescar token y reintentar una vez
-            if (ex.getRawStatusCode() == 401) {
-                log.info("Proxy: 401 en bloqueo; refrescando token y reintentando una vez...");
-                try {
-                    authService.refreshToken();
-                    var respuestaCatedra = catedraRestClient.post()
-                            .uri("/api/endpoints/v1/bloquear-asientos")
-                            .header("X-Session-Id", sessionId)
-                            .body(body)
-                            .retrieve()
-                            .body(org.example.tf25.proxy.dto.catedra.RespuestaBloqueoAsientosRemotaDto.class);
-
-                    if (respuestaCatedra != null) {
-                        var lista = respuestaCatedra.asientos();
-                        boolean resultadoOk = respuestaCatedra.resultado();
-                        String descripcion = respuestaCatedra.descripcion();
-
-                        if (lista != null && !lista.isEmpty()) {
-                            for (AsientoBloqueadoRemoto a : lista) {
-                                String id = "r" + a.fila() + "c" + a.columna();
-                                String estadoUpstreamRaw = a.estado();
-                                String estadoUpstream = estadoUpstreamRaw != null ? estadoUpstreamRaw.trim() : null;
-                                String estado = mapEstadoCatedraRobusto(estadoUpstream);
-                                boolean esProblema = "CONFLICTO".equals(estado) || "INVALIDO".equals(estado) || "DESCONOCIDO".equals(estado);
-                                String mensaje = (!resultadoOk && esProblema && descripcion != null && !descripcion.isBlank()) ? descripcion : null;
-                                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, estado, mensaje));
-                                if ("OK".equals(estado)) {
-                                    lockService.lockSeat(externalEventoId, sessionId, id);
-                                }
-                            }
-                        } else {
-                            for (String id : idsValidos) {
-                                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR",
-                                        (descripcion != null && !descripcion.isBlank()) ? descripcion : "Sin respuesta de cátedra"));
-                            }
-                        }
-                    } else {
-                        for (String id : idsValidos) {
-                            resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Sin respuesta de cátedra"));
-                        }
-                    }
-                    return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
-                } catch (org.springframework.web.client.RestClientResponseException ex2) {
-                    log.warn("Proxy: reintento tras refresh falló con HTTP {}: {}", ex2.getRawStatusCode(), ex2.getResponseBodyAsString());
-                } catch (org.springframework.web.client.RestClientException ex2) {
-                    log.warn("Proxy: reintento tras refresh falló por comunicación", ex2);
-                }
+    private org.example.tf25.proxy.dto.catedra.RespuestaBloqueoAsientosRemotaDto llamarCatedra(
+            String sessionId, org.example.tf25.proxy.dto.catedra.PeticionBloqueoAsientosRemotaDto body,
+            AtomicLong generacionToken) {
+        return resilience.ejecutar(CatedraResilience.Operacion.BLOQUEAR_ASIENTOS, () -> catedraRestClient.post()
+                .uri("/api/endpoints/v1/bloquear-asientos")
+                .attribute(CatedraAuthService.ATRIBUTO_GENERACION, generacionToken)
+                .header("X-Session-Id", sessionId)
+                .body(body)
+                .retrieve()
+                .body(org.example.tf25.proxy.dto.catedra.RespuestaBloqueoAsientosRemotaDto.class));
+    }
+
+    /**
+     * Traduce la respuesta de la cátedra a resultados por asiento y anota en {@code confirmados}
+     * los reservados que la cátedra aceptó.
+     */
+    private void agregarResultadosCatedra(org.example.tf25.proxy.dto.catedra.RespuestaBloqueoAsientosRemotaDto respuestaCatedra,
+                                          List<String> enviados,
+                                          List<ResultadoBloqueoAsientoRemotoDto> resultadosFinales,
+                                          Set<String> confirmados) {
+        if (respuestaCatedra == null) {
+            // sin respuesta: marcar ERROR para los enviados a cátedra
+            for (String id : enviados) {
+                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Sin respuesta de cátedra"));
             }
-            log.warn("Proxy: error HTTP {} al bloquear asientos en cátedra: {}", ex.getRawStatusCode(), ex.getResponseBodyAsString());
-            for (String id : idsValidos) {
-                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Error HTTP " + ex.getRawStatusCode() + " en cátedra"));
+            return;
+        }
+        log.info("Proxy: respuesta de bloqueo de cátedra: resultado={}, descripcion={}, asientos={}",
+                respuestaCatedra.resultado(), respuestaCatedra.descripcion(), respuestaCatedra.asientos());
+
+        var lista = respuestaCatedra.asientos();
+        boolean resultadoOk = respuestaCatedra.resultado();
+        String descripcion = respuestaCatedra.descripcion();
+
+        if (lista == null || lista.isEmpty()) {
+            // No hay lista de asientos; si hay descripcion, propagarla
+            for (String id : enviados) {
+                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR",
+                        (descripcion != null && !descripcion.isBlank()) ? descripcion : "Sin respuesta de cátedra"));
             }
-            return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
-        } catch (org.springframework.web.client.RestClientException ex) {
-            log.warn("Proxy: error de comunicación con cátedra al bloquear asientos", ex);
-            for (String id : idsValidos) {
-                resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, "ERROR", "Error de comunicación con cátedra"));
+            return;
+        }
+
+        // la cátedra responde "r{fila}c{columna}"; se mapea de vuelta al id tal como se reservó
+        Map<String, String> enviadoPorCanonico = new HashMap<>();
+        for (String id : enviados) {
+            enviadoPorCanonico.put(id.trim().toLowerCase(Locale.ROOT), id);
+        }
+        for (AsientoBloqueadoRemoto a : lista) {
+            String canonico = "r" + a.fila() + "c" + a.columna();
+            String id = enviadoPorCanonico.getOrDefault(canonico, canonico);
+            String estadoUpstreamRaw = a.estado();
+            String estadoUpstream = estadoUpstreamRaw != null ? estadoUpstreamRaw.trim() : null;
+
+            log.debug("Proxy: procesando asiento {} con estado upstream: '{}'", id, estadoUpstream);
+
+            String estado = mapEstadoCatedraRobusto(estadoUpstream);
+            boolean esProblema = "CONFLICTO".equals(estado) || "INVALIDO".equals(estado) || "DESCONOCIDO".equals(estado);
+
+            // Si la cátedra dice que no es OK a nivel global, propagamos su descripción como mensaje de error
+            String mensaje = (!resultadoOk && esProblema && descripcion != null && !descripcion.isBlank()) ? descripcion : null;
+
+            resultadosFinales.add(new ResultadoBloqueoAsientoRemotoDto(id, estado, mensaje));
+            if ("OK".equals(estado)) {
+                confirmados.add(id);
             }
-            return new RespuestaBloqueoAsientosRemotaDto(externalEventoId, sessionId, resultadosFinales);
         }
     }
 
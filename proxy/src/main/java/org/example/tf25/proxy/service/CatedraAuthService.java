@@ -1,17 +1,28 @@
 package org.example.tf25.proxy.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.tf25.proxy.config.CatedraProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class CatedraAuthService {
@@ -20,84 +31,206 @@ public class CatedraAuthService {
 
     private final CatedraProperties properties;
 
-    private final AtomicReference<String> cachedToken = new AtomicReference<>();
+    /**
+     * Token obtenido por login. {@code expiraEn} sale del claim {@code exp} (null si el JWT no lo trae);
+     * {@code generacion} crece con cada login y permite descartar 401 de requests hechos con un token viejo.
+     */
+    private record TokenLogin(String valor, Instant expiraEn, long generacion) {
+    }
+
+    private volatile TokenLogin tokenLogin;
+
+    /**
+     * Token que lleva un request y la generación del login del que salió (0 si es estático o de archivo):
+     * es la que hay que pasar a {@link #refreshToken(long)} si ese request recibe 401.
+     */
+    public record TokenAdjunto(String valor, long generacion) {
+    }
+
+    /**
+     * Atributo de request (RestClient {@code .attribute(...)}) con un {@link AtomicLong} donde el interceptor
+     * anota la generación del token que efectivamente adjuntó. Leerla antes del request no sirve: el
+     * interceptor puede loguear o renovar en el medio.
+     */
+    public static final String ATRIBUTO_GENERACION = CatedraAuthService.class.getName() + ".generacion";
+
+    /**
+     * JWT leído de {@code tf25.catedra.token-file}; fecha de modificación y tamaño para detectar cambios
+     * sin releer el contenido. El interceptor de cada request solo lee este campo (sin I/O).
+     */
+    private record TokenArchivo(String valor, FileTime modificado, long tamanio) {
+    }
+
+    private static final TokenArchivo SIN_ARCHIVO = new TokenArchivo(null, null, -1);
+
+    private volatile TokenArchivo tokenArchivo = SIN_ARCHIVO;
+
+    // Un solo login a la vez (los pedidos concurrentes de renovación se colapsan en uno).
+    // ReentrantLock y no synchronized: el login es I/O y, con hilos virtuales, un monitor tomado
+    // durante el HTTP fija el carrier (JDK 21)
+    private final ReentrantLock loginLock = new ReentrantLock();
 
-    public CatedraAuthService(CatedraProperties properties) {
+    private final ObjectMapper objectMapper;
+    private final Duration margenRenovacion;
+
+    // RestClient propio (sin el interceptor de token) para evitar dependencia circular con el bean compartido;
+    // usa el mismo pool de conexiones
+    private final RestClient loginRestClient;
+    // el login tiene su propio bulkhead y circuito: con la cátedra caída no se apilan logins esperando el timeout
+    private final CatedraResilience resilience;
+
+    public CatedraAuthService(CatedraProperties properties,
+                              ClientHttpRequestFactory factory,
+                              ObjectMapper objectMapper,
+                              CatedraResilience resilience,
+                              @Value("${tf25.catedra.auth.refresh-margin:60s}") Duration margenRenovacion) {
         this.properties = properties;
+        this.resilience = resilience;
+        this.objectMapper = objectMapper;
+        this.margenRenovacion = margenRenovacion;
+        this.loginRestClient = RestClient.builder()
+                .baseUrl(properties.getBaseUrl())
+                .requestFactory(factory)
+                .build();
+        recargarArchivoSiCambio();
     }
 
     /**
-     * Devuelve un token válido desde cache o realizando login.
+     * Devuelve un token válido desde cache o realizando login, con su generación.
      */
-    public String getBearerToken() {
+    public TokenAdjunto getBearerToken() {
         // 1) Si hay token estático configurado, úsalo y evitá login
         if (properties.getToken() != null && StringUtils.hasText(properties.getToken())) {
-            return properties.getToken().trim();
+            return new TokenAdjunto(properties.getToken().trim(), 0);
         }
-        // 1.b) Si hay archivo de token configurado y con contenido, úsalo
-        String fileToken = getTokenFromFileIfConfigured();
+        // 1.b) Si hay archivo de token configurado y con contenido, úsalo (cacheado en memoria)
+        String fileToken = tokenArchivo.valor();
         if (StringUtils.hasText(fileToken)) {
-            return fileToken;
+            return new TokenAdjunto(fileToken, 0);
         }
-        // 2) Caso contrario, usar token cacheado o loguear
-        String token = cachedToken.get();
-        if (!StringUtils.hasText(token)) {
-            synchronized (this) {
-                token = cachedToken.get();
-                if (!StringUtils.hasText(token)) {
-                    token = doLogin();
-                    cachedToken.set(token);
-                }
-            }
+        // 2) Caso contrario, usar token de login cacheado (si no venció) o loguear
+        TokenLogin token = tokenLogin;
+        if (token == null || vencido(token)) {
+            token = renovar(token == null ? 0 : token.generacion());
         }
-        return token;
+        return new TokenAdjunto(token.valor(), token.generacion());
     }
 
     /**
-     * Fuerza relogin e invalida el token cacheado.
+     * Relogin tras un 401 de un request hecho con el token de {@code generacionUsada} (la que anotó el
+     * interceptor en {@link #ATRIBUTO_GENERACION}). Si otro hilo ya renovó desde entonces no se vuelve a
+     * loguear y se devuelve el token nuevo.
      */
-    public String refreshToken() {
+    public String refreshToken(long generacionUsada) {
         // Si hay token estático, simplemente lo devolvemos
         if (properties.getToken() != null && StringUtils.hasText(properties.getToken())) {
             return properties.getToken().trim();
         }
-        // Si hay archivo de token, recargar desde allí
-        String fileToken = getTokenFromFileIfConfigured();
+        // Si hay archivo de token, recargar desde allí (si cambió)
+        recargarArchivoSiCambio();
+        String fileToken = tokenArchivo.valor();
         if (StringUtils.hasText(fileToken)) {
-            cachedToken.set(fileToken);
             return fileToken;
         }
-        synchronized (this) {
-            String token = doLogin();
-            cachedToken.set(token);
-            return token;
+        return renovar(generacionUsada).valor();
+    }
+
+    /**
+     * Renueva en segundo plano el token de login cuando le queda menos de {@code refresh-margin},
+     * así los requests no pagan el 401 + login al vencer.
+     */
+    @Scheduled(fixedDelayString = "${tf25.catedra.auth.refresh-check-ms:15000}")
+    void renovarAntesDeVencer() {
+        TokenLogin token = tokenLogin;
+        if (token == null || token.expiraEn() == null) return;
+        if (Instant.now().isBefore(token.expiraEn().minus(margenRenovacion))) return;
+        try {
+            TokenLogin nuevo = renovar(token.generacion());
+            log.info("Proxy: token de cátedra renovado antes de vencer (expira {})", nuevo.expiraEn());
+        } catch (Exception e) {
+            // se sigue usando el actual hasta que venza; se reintenta en el próximo chequeo
+            log.warn("Proxy: no se pudo renovar el token de cátedra antes de vencer: {}", e.toString());
+        }
+    }
+
+    private TokenLogin renovar(long generacionVista) {
+        loginLock.lock();
+        try {
+            TokenLogin actual = tokenLogin;
+            if (actual != null && actual.generacion() != generacionVista && !vencido(actual)) {
+                // otro hilo ya renovó mientras esperábamos el lock
+                return actual;
+            }
+            String valor = doLogin();
+            TokenLogin nuevo = new TokenLogin(valor, leerExpiracion(valor), actual == null ? 1 : actual.generacion() + 1);
+            tokenLogin = nuevo;
+            return nuevo;
+        } finally {
+            loginLock.unlock();
         }
     }
 
-    private String getTokenFromFileIfConfigured() {
+    private static boolean vencido(TokenLogin token) {
+        return token.expiraEn() != null && !Instant.now().isBefore(token.expiraEn());
+    }
+
+    /** Claim {@code exp} del JWT (sin validar la firma: solo se usa para saber cuándo renovar). */
+    private Instant leerExpiracion(String jwt) {
+        try {
+            String[] partes = jwt.split("\\.");
+            if (partes.length < 2) return null;
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(partes[1]));
+            JsonNode exp = claims.get("exp");
+            return exp != null && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+        } catch (Exception e) {
+            log.debug("Proxy: token de cátedra sin exp legible: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Relee el archivo de token solo si cambió su fecha de modificación o su tamaño. Corre cada
+     * {@code token-file-check-ms}, al arrancar y ante un 401.
+     */
+    @Scheduled(fixedDelayString = "${tf25.catedra.token-file-check-ms:5000}")
+    void recargarArchivoSiCambio() {
+        String tokenFile = properties.getTokenFile();
+        if (!StringUtils.hasText(tokenFile)) return;
         try {
-            String tokenFile = properties.getTokenFile();
-            if (!StringUtils.hasText(tokenFile)) return null;
             Path path = Path.of(tokenFile);
-            if (!Files.exists(path)) return null;
-            String content = Files.readString(path);
-            if (!StringUtils.hasText(content)) return null;
-            // Tomar la primera línea no vacía y limpiar espacios/quotes
-            String first = java.util.Arrays.stream(content.split("\r?\n"))
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .findFirst().orElse("");
-            if (!StringUtils.hasText(first)) return null;
-            if ((first.startsWith("\"") && first.endsWith("\"")) || (first.startsWith("'") && first.endsWith("'"))) {
-                first = first.substring(1, first.length() - 1).trim();
+            if (!Files.exists(path)) {
+                if (tokenArchivo != SIN_ARCHIVO) {
+                    log.info("Proxy: archivo de token {} ya no existe; se usa login", path);
+                    tokenArchivo = SIN_ARCHIVO;
+                }
+                return;
             }
-            return first;
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            TokenArchivo actual = tokenArchivo;
+            if (attrs.lastModifiedTime().equals(actual.modificado()) && attrs.size() == actual.tamanio()) return;
+            tokenArchivo = new TokenArchivo(leerTokenDeArchivo(path), attrs.lastModifiedTime(), attrs.size());
+            log.info("Proxy: token de cátedra cargado desde archivo {}", path);
         } catch (Exception e) {
+            // se conserva lo último leído
             log.debug("Proxy: no se pudo leer token desde archivo configurado: {}", e.toString());
-            return null;
         }
     }
 
+    private static String leerTokenDeArchivo(Path path) throws IOException {
+        String content = Files.readString(path);
+        if (!StringUtils.hasText(content)) return null;
+        // Tomar la primera línea no vacía y limpiar espacios/quotes
+        String first = java.util.Arrays.stream(content.split("\r?\n"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .findFirst().orElse("");
+        if (!StringUtils.hasText(first)) return null;
+        if ((first.startsWith("\"") && first.endsWith("\"")) || (first.startsWith("'") && first.endsWith("'"))) {
+            first = first.substring(1, first.length() - 1).trim();
+        }
+        return first;
+    }
+
     private String doLogin() throws RestClientException, IllegalStateException {
         if (properties.getAuth() == null || !StringUtils.hasText(properties.getAuth().getLoginPath())) {
             throw new IllegalStateException("tf25.catedra.auth.login-path no configurado");
@@ -116,12 +249,7 @@ public class CatedraAuthService {
             log.info("Proxy: realizando login contra cátedra en {} + {}", baseUrl, loginPath);
         }
 
-        // RestClient local para evitar dependencia circular con el bean compartido
-        RestClient restClient = RestClient.builder()
-                .baseUrl(baseUrl)
-                .build();
-
-        JsonNode response = restClient.post()
+        JsonNode response = resilience.ejecutar(CatedraResilience.Operacion.LOGIN, () -> loginRestClient.post()
                 // Usamos solo el path; si viene absoluto, RestClient lo respeta igualmente
                 .uri(loginPath)
                 .body(new org.example.tf25.proxy.dto.catedra.CatedraLoginRequest(
@@ -129,7 +257,7 @@ public class CatedraAuthService {
                         properties.getAuth().getPassword()
                 ))
                 .retrieve()
-                .body(JsonNode.class);
+                .body(JsonNode.class));
 
         String token = extractToken(response);
         if (!StringUtils.hasText(token)) {
@@ -0,0 +1,196 @@
+package org.example.tf25.proxy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.tf25.proxy.dto.AsientoRemotoDto;
+import org.example.tf25.proxy.dto.catedra.CatedraRedisAsientoDto;
+import org.example.tf25.proxy.dto.catedra.CatedraRedisEventoDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Snapshot parseado y normalizado del documento "evento_{id}" que la cátedra guarda en su Redis.
+ * Los pedidos de mapa de asientos se sirven desde memoria; los eventos consultados recientemente
+ * se refrescan en segundo plano (y al llegar un cambio por Kafka). Si el documento no cambió
+ * (mismo largo y hash) no se vuelve a parsear. Solo quedan en el cache los eventos cuyo documento
+ * existe: un id que la cátedra no tiene se consulta en cada pedido pero no entra al refresco periódico.
+ */
+@Component
+public class CatedraEventoSnapshotCache {
+    private static final Logger log = LoggerFactory.getLogger(CatedraEventoSnapshotCache.class);
+
+    private final StringRedisTemplate catedraRedis;
+    private final ObjectMapper objectMapper;
+    private final long maxEdadMs;
+    private final long inactividadMs;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public CatedraEventoSnapshotCache(@Qualifier("catedraRedisTemplate") StringRedisTemplate catedraRedis,
+                                      ObjectMapper objectMapper,
+                                      @Value("${tf25.catedra.snapshot.max-age-ms:30000}") long maxEdadMs,
+                                      @Value("${tf25.catedra.snapshot.idle-ms:120000}") long inactividadMs) {
+        this.catedraRedis = catedraRedis;
+        this.objectMapper = objectMapper;
+        this.maxEdadMs = maxEdadMs;
+        this.inactividadMs = inactividadMs;
+    }
+
+    /** Asientos no libres según la cátedra (estado ya normalizado a "Bloqueado"/"Vendido"). */
+    public List<AsientoRemotoDto> ocupados(String externalEventoId) {
+        Entrada entrada = entradas.computeIfAbsent(externalEventoId, id -> new Entrada());
+        entrada.ultimoAcceso = System.currentTimeMillis();
+        Snapshot snapshot = entrada.snapshot;
+        if (snapshot == null) {
+            // Primera carga: pedidos concurrentes del mismo evento esperan el mismo GET. El GET va fuera
+            // de compute() (que toma el monitor del bin del mapa y fijaría el carrier de un hilo virtual).
+            entrada.carga.lock();
+            try {
+                snapshot = entrada.snapshot;
+                if (snapshot == null) {
+                    snapshot = cargar(externalEventoId, null);
+                    entrada.snapshot = snapshot;
+                }
+            } finally {
+                entrada.carga.unlock();
+            }
+            descartarSiNoExiste(externalEventoId, entrada, snapshot);
+        }
+        return snapshot.ocupados();
+    }
+
+    /** Cambio avisado por la cátedra: se recarga ya si el evento está en uso. */
+    public void invalidar(String externalEventoId) {
+        Entrada entrada = entradas.get(externalEventoId);
+        if (entrada != null) {
+            recargar(externalEventoId, entrada);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tf25.catedra.snapshot.refresh-ms:1000}")
+    void refrescar() {
+        long ahora = System.currentTimeMillis();
+        entradas.forEach((id, entrada) -> {
+            if (ahora - entrada.ultimoAcceso > inactividadMs) {
+                entradas.remove(id, entrada);
+                return;
+            }
+            recargar(id, entrada);
+        });
+    }
+
+    private void recargar(String externalEventoId, Entrada entrada) {
+        entrada.carga.lock();
+        try {
+            entrada.snapshot = cargar(externalEventoId, entrada.snapshot);
+        } finally {
+            entrada.carga.unlock();
+        }
+        descartarSiNoExiste(externalEventoId, entrada, entrada.snapshot);
+    }
+
+    /** Sin documento no hay nada que refrescar; si el evento aparece, el próximo pedido lo vuelve a cargar. */
+    private void descartarSiNoExiste(String externalEventoId, Entrada entrada, Snapshot snapshot) {
+        if (!snapshot.existe()) {
+            entradas.remove(externalEventoId, entrada);
+        }
+    }
+
+    private Snapshot cargar(String externalEventoId, Snapshot anterior) {
+        long ahora = System.currentTimeMillis();
+        String json;
+        try {
+            json = catedraRedis.opsForValue().get("evento_" + externalEventoId);
+        } catch (Exception ex) {
+            // Redis de la cátedra caído: se sigue sirviendo lo último conocido
+            log.debug("Proxy: error consultando Redis cátedra para evento {}: {}", externalEventoId, ex.toString());
+            return anterior != null ? anterior : Snapshot.sinDocumento(ahora);
+        }
+        if (json == null || json.isBlank()) {
+            return Snapshot.sinDocumento(ahora);
+        }
+
+        int largo = json.length();
+        int hash = json.hashCode();
+        if (anterior != null && anterior.largo() == largo && anterior.hash() == hash
+                && ahora - anterior.parseadoEn() < maxEdadMs) {
+            // mismo documento: se evita el parseo (maxEdad acota el riesgo de colisión del hash)
+            return anterior;
+        }
+
+        try {
+            CatedraRedisEventoDto payload = objectMapper.readValue(json, CatedraRedisEventoDto.class);
+            return new Snapshot(normalizar(payload), largo, hash, ahora);
+        } catch (Exception ex) {
+            log.debug("Proxy: documento inválido en Redis cátedra para evento {}: {}", externalEventoId, ex.toString());
+            return anterior != null ? anterior : Snapshot.vacio(ahora);
+        }
+    }
+
+    private static List<AsientoRemotoDto> normalizar(CatedraRedisEventoDto payload) {
+        if (payload == null || payload.asientos() == null) {
+            return List.of();
+        }
+        List<AsientoRemotoDto> ocupados = new ArrayList<>(payload.asientos().size());
+        for (CatedraRedisAsientoDto a : payload.asientos()) {
+            if (a == null || a.fila() == null || a.columna() == null || a.estado() == null) {
+                continue;
+            }
+            String estadoLocal;
+
+            // Normalizamos estados comunes de la cátedra
+            String e = a.estado().trim().toUpperCase();
+
+            if (e.contains("BLOQ") || e.contains("RESERV")) {
+                estadoLocal = "Bloqueado";
+            } else if (e.contains("VEND") || e.contains("OCUP")) {
+                estadoLocal = "Vendido";
+            } else if (e.contains("LIBR") || e.contains("DISP")) {
+                // Si está libre, no lo agregamos a la lista de ocupados
+                continue;
+            } else {
+                // Por las dudas, si es cualquier otra cosa que no sea LIBRE, lo marcamos como bloqueado
+                estadoLocal = "Bloqueado";
+            }
+
+            String id = "r" + a.fila() + "c" + a.columna();
+            ocupados.add(new AsientoRemotoDto(id, a.fila(), a.columna(), estadoLocal));
+        }
+        return List.copyOf(ocupados);
+    }
+
+    private static final class Entrada {
+        final ReentrantLock carga = new ReentrantLock();
+        volatile Snapshot snapshot;
+        volatile long ultimoAcceso = System.currentTimeMillis();
+    }
+
+    /**
+     * @param ocupados inmutable; largo/hash del JSON de origen para detectar documentos sin cambios
+     * @param existe   false si no se encontró el documento (o no se pudo leer y no había uno anterior)
+     */
+    private record Snapshot(List<AsientoRemotoDto> ocupados, int largo, int hash, long parseadoEn, boolean existe) {
+        Snapshot(List<AsientoRemotoDto> ocupados, int largo, int hash, long parseadoEn) {
+            this(ocupados, largo, hash, parseadoEn, true);
+        }
+
+        /** Documento presente pero ilegible: se conserva la entrada, el documento puede corregirse. */
+        static Snapshot vacio(long ahora) {
+            return new Snapshot(List.of(), -1, 0, ahora);
+        }
+
+        static Snapshot sinDocumento(long ahora) {
+            return new Snapshot(List.of(), -1, 0, ahora, false);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.tf25.proxy.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Envuelve cada llamada a la cátedra con un bulkhead (concurrencia) y un circuit breaker propios
+ * de la operación. Si la llamada no se permite se lanza {@link CatedraNoDisponibleException}, que es
+ * un {@link RestClientException}: los controllers la resuelven con su fallback "amable" habitual
+ * sin esperar el timeout de red.
+ */
+@Service
+public class CatedraResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(CatedraResilience.class);
+
+    public enum Operacion {
+        LISTAR_EVENTOS("listar-eventos"),
+        OBTENER_EVENTO("obtener-evento"),
+        BLOQUEAR_ASIENTOS("bloquear-asientos"),
+        REALIZAR_VENTA("realizar-venta"),
+        LISTAR_VENTAS("listar-ventas"),
+        OBTENER_VENTA("obtener-venta"),
+        LOGIN("login");
+
+        private final String nombre;
+
+        Operacion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String nombre() {
+            return nombre;
+        }
+    }
+
+    private record Protecciones(CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                                Counter rechazosCircuito, Counter rechazosBulkhead) {
+    }
+
+    private final Map<Operacion, Protecciones> protecciones = new EnumMap<>(Operacion.class);
+
+    public CatedraResilience(CircuitBreakerRegistry circuitBreakerRegistry,
+                             BulkheadRegistry bulkheadRegistry,
+                             Environment env,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry mr = meterRegistry.getIfAvailable();
+        for (Operacion op : Operacion.values()) {
+            // Límite de concurrencia por operación (opcional): tf25.catedra.resilience.bulkhead.operaciones.<nombre>
+            Integer max = env.getProperty("tf25.catedra.resilience.bulkhead.operaciones." + op.nombre(), Integer.class);
+            Bulkhead bulkhead = max == null
+                    ? bulkheadRegistry.bulkhead(op.nombre())
+                    : bulkheadRegistry.bulkhead(op.nombre(), BulkheadConfig.from(bulkheadRegistry.getDefaultConfig())
+                            .maxConcurrentCalls(max)
+                            .build());
+            CircuitBreaker cb = circuitBreakerRegistry.circuitBreaker(op.nombre());
+            cb.getEventPublisher().onStateTransition(e ->
+                    log.warn("Proxy: circuito cátedra '{}' {}", op.nombre(), e.getStateTransition()));
+            protecciones.put(op, new Protecciones(cb, bulkhead, rechazos(mr, op, "circuit-breaker"), rechazos(mr, op, "bulkhead")));
+        }
+    }
+
+    private static Counter rechazos(MeterRegistry mr, Operacion op, String motivo) {
+        if (mr == null) return null;
+        return Counter.builder("tf25.catedra.rechazos")
+                .description("Llamadas a la cátedra rechazadas sin salir a la red")
+                .tag("operacion", op.nombre())
+                .tag("motivo", motivo)
+                .register(mr);
+    }
+
+    public <T> T ejecutar(Operacion op, Supplier<T> llamada) {
+        Protecciones p = protecciones.get(op);
+        // El bulkhead va afuera: una llamada rechazada por concurrencia no cuenta para el circuito
+        Supplier<T> decorada = Bulkhead.decorateSupplier(p.bulkhead(),
+                CircuitBreaker.decorateSupplier(p.circuitBreaker(), llamada));
+        try {
+            return decorada.get();
+        } catch (CallNotPermittedException ex) {
+            if (p.rechazosCircuito() != null) p.rechazosCircuito().increment();
+            log.debug("Proxy: '{}' rechazada, circuito abierto", op.nombre());
+            throw new CatedraNoDisponibleException("Cátedra no disponible (circuito abierto en " + op.nombre() + ")", ex);
+        } catch (BulkheadFullException ex) {
+            if (p.rechazosBulkhead() != null) p.rechazosBulkhead().increment();
+            log.debug("Proxy: '{}' rechazada, sin cupo de concurrencia", op.nombre());
+            throw new CatedraNoDisponibleException("Cátedra saturada (sin cupo en " + op.nombre() + ")", ex);
+        }
+    }
+
+    /**
+     * La llamada no salió a la red porque el circuito está abierto o el bulkhead está lleno.
+     */
+    public static class CatedraNoDisponibleException extends RestClientException {
+        public CatedraNoDisponibleException(String msg, Throwable cause) {
+            super(msg, cause);
+        }
+    }
+}
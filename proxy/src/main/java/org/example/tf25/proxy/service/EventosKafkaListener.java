@@ -6,10 +6,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class EventosKafkaListener {
@@ -18,40 +24,69 @@ public class EventosKafkaListener {
 
     private final RestClient backendRestClient;
     private final ObjectMapper objectMapper;
+    private final CatedraEventoSnapshotCache snapshotCache;
 
     public EventosKafkaListener(@Qualifier("backendRestClient") RestClient backendRestClient,
-                                ObjectMapper objectMapper) {
+                                ObjectMapper objectMapper,
+                                CatedraEventoSnapshotCache snapshotCache) {
         this.backendRestClient = backendRestClient;
         this.objectMapper = objectMapper;
+        this.snapshotCache = snapshotCache;
     }
 
+    /**
+     * Lote de cambios (ver {@code EventosKafkaConfig}): los ids repetidos se colapsan en uno y se notifican
+     * al backend en un solo request. El offset se commitea recién cuando el backend sincronizó todos los
+     * eventos; si el request falla o algún evento vuelve con ERROR, la excepción hace que el contenedor
+     * reintente el lote.
+     */
     @KafkaListener(
             topics = "${kafka.topic.eventos}",
-            groupId = "${spring.kafka.consumer.group-id:tf25-proxy}"
+            groupId = "${spring.kafka.consumer.group-id:tf25-proxy}",
+            containerFactory = "eventosBatchListenerFactory"
     )
-    public void onEventoChange(String raw) {
-        char firstChar = (raw != null && !raw.isBlank()) ? raw.trim().charAt(0) : '?';
-        log.info("[eventos-actualizacion] raw='{}' len={} firstChar={}",
-                raw, (raw != null ? raw.length() : -1), firstChar);
-
-        Optional<Long> externalIdOpt = parseExternalId(raw);
-        if (externalIdOpt.isEmpty()) {
-            log.warn("Kafka: mensaje inválido, no pude extraer externalId. raw='{}'", raw);
-            return;
+    public void onEventosChange(List<String> raws, Acknowledgment ack) {
+        Set<Long> externalIds = new LinkedHashSet<>();
+        for (String raw : raws) {
+            log.debug("[eventos-actualizacion] raw='{}'", raw);
+            Optional<Long> externalIdOpt = parseExternalId(raw);
+            if (externalIdOpt.isEmpty()) {
+                log.warn("Kafka: mensaje inválido, no pude extraer externalId. raw='{}'", raw);
+                continue;
+            }
+            externalIds.add(externalIdOpt.get());
         }
-        long externalId = externalIdOpt.get();
-        log.info("Kafka: recibido cambio de evento externalId={}", externalId);
+        log.info("Kafka: lote de {} cambios -> {} eventos distintos {}", raws.size(), externalIds.size(), externalIds);
 
-        try {
-            backendRestClient.post()
-                    .uri("/api/eventos/sync/{externalId}", externalId)
-                    .retrieve()
-                    .toBodilessEntity();
-
-            log.info("Notificación enviada al backend para externalId={}", externalId);
-        } catch (Exception e) {
-            log.error("Error notificando al backend para externalId={}", externalId, e);
+        if (!externalIds.isEmpty()) {
+            // el mapa de asientos en memoria no espera al próximo refresco periódico
+            externalIds.forEach(id -> snapshotCache.invalidar(String.valueOf(id)));
+            notificarBackend(externalIds);
+        }
+        ack.acknowledge();
+    }
+
+    private void notificarBackend(Set<Long> externalIds) {
+        JsonNode respuesta = backendRestClient.post()
+                .uri("/api/eventos/sync/lote")
+                .body(Map.of("externalIds", externalIds.stream().map(String::valueOf).toList()))
+                .retrieve()
+                .body(JsonNode.class);
+        if (respuesta == null || !respuesta.has("resultados")) {
+            throw new IllegalStateException("Backend respondió el sync de lote sin resultados para externalIds=" + externalIds);
+        }
+        List<String> fallidos = new ArrayList<>();
+        for (JsonNode r : respuesta.get("resultados")) {
+            if ("ERROR".equals(r.path("resultado").asText())) {
+                log.warn("Backend no pudo sincronizar externalId={}: {}", r.path("externalId").asText(), r.path("detalle").asText());
+                fallidos.add(r.path("externalId").asText());
+            }
+        }
+        if (!fallidos.isEmpty()) {
+            // sin ack: el contenedor reintenta el lote con backoff (el sync de los que salieron bien es idempotente)
+            throw new IllegalStateException("Backend no pudo sincronizar externalIds=" + fallidos);
         }
+        log.info("Notificación de lote enviada al backend para externalIds={}", externalIds);
     }
 
     private Optional<Long> parseExternalId(String raw) {
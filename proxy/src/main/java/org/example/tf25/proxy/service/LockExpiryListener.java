@@ -0,0 +1,48 @@
+package org.example.tf25.proxy.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Publica como LIBRE los asientos cuyo lock venció por TTL (nadie llamó a unlock).
+ * Requiere notificaciones de keyspace en el Redis local ({@code notify-keyspace-events Ex});
+ * sin ellas simplemente no llegan eventos y el cliente ve el cambio en el próximo resync.
+ */
+@Component
+public class LockExpiryListener implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(LockExpiryListener.class);
+
+    private static final String PREFIJO_LOCK = "lock:";
+
+    private final RedisMessageListenerContainer container;
+    private final AsientosDeltaPublisher deltaPublisher;
+
+    public LockExpiryListener(RedisMessageListenerContainer container, AsientosDeltaPublisher deltaPublisher) {
+        this.container = container;
+        this.deltaPublisher = deltaPublisher;
+    }
+
+    @PostConstruct
+    void registrar() {
+        container.addMessageListener(this, new PatternTopic("__keyevent@*__:expired"));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!key.startsWith(PREFIJO_LOCK)) return;
+        // lock:{eventId}:{seatId}
+        String[] parts = key.split(":");
+        if (parts.length != 3) return;
+        log.debug("Lock vencido {} -> LIBRE", key);
+        deltaPublisher.publicar(parts[1], parts[2], AsientosDeltaPublisher.LIBRE);
+    }
+}
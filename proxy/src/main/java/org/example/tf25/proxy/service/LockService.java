@@ -1,9 +1,14 @@
 package org.example.tf25.proxy.service;
 
+import org.example.tf25.proxy.service.dto.ResultadoLockAsientos;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -14,14 +19,26 @@ import java.util.concurrent.TimeUnit;
  * Claves:
  *  - lock:{eventId}:{seatId} -> sessionId (TTL 5m)
  *  - session:{sessionId}:event:{eventId} -> Set de seatIds (TTL 5m)
+ *  - lockidx:{eventId} -> ZSet seatId con score = vencimiento del lock (ms, reloj de Redis); se
+ *    actualiza en los mismos scripts que toman/liberan locks y se poda en lectura ({@link #lockedSeats})
+ * Cada lock tomado/liberado se publica como delta para el stream de asientos ({@link AsientosDeltaPublisher}).
  */
 @Service
 public class LockService {
     private final StringRedisTemplate redis;
+    private final AsientosDeltaPublisher deltaPublisher;
     private static final Duration TTL = Duration.ofMinutes(5);
+    private final Duration ttl;
 
-    public LockService(StringRedisTemplate redis) {
+    @Autowired
+    public LockService(StringRedisTemplate redis, AsientosDeltaPublisher deltaPublisher) {
+        this(redis, deltaPublisher, TTL);
+    }
+
+    LockService(StringRedisTemplate redis, AsientosDeltaPublisher deltaPublisher, Duration ttl) {
         this.redis = redis;
+        this.deltaPublisher = deltaPublisher;
+        this.ttl = ttl;
     }
 
     private String lockKey(String eventId, String seatId) {
@@ -32,6 +49,36 @@ public class LockService {
         return "session:" + sessionId + ":event:" + eventId;
     }
 
+    private String lockIndexKey(String eventId) {
+        return "lockidx:" + eventId;
+    }
+
+    /** Milisegundos actuales según el reloj de Redis (mismo reloj para todas las réplicas del proxy). */
+    private static final String LUA_AHORA_MS =
+            "local t = redis.call('time') " +
+            "local ahora = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) ";
+
+    /**
+     * Asientos con lock vigente en el evento, en un solo comando: poda los vencidos del índice y
+     * devuelve el resto. Reemplaza el KEYS lock:{eventId}:* (O(keyspace) y bloqueante).
+     */
+    private static final DefaultRedisScript<List> LOCKS_VIGENTES = new DefaultRedisScript<>(
+            LUA_AHORA_MS +
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', ahora) " +
+            "return redis.call('zrange', KEYS[1], 0, -1)",
+            List.class);
+
+    @SuppressWarnings("unchecked")
+    public Set<String> lockedSeats(String eventId) {
+        List<Object> raw = redis.execute(LOCKS_VIGENTES, List.of(lockIndexKey(eventId)));
+        if (raw == null || raw.isEmpty()) return Set.of();
+        Set<String> seats = new HashSet<>(raw.size() * 2);
+        for (Object o : raw) {
+            seats.add(String.valueOf(o));
+        }
+        return seats;
+    }
+
     /**
      * Devuelve el sessionId que posee el lock del asiento, si existe.
      */
@@ -41,58 +88,201 @@ public class LockService {
     }
 
     /**
-     * Coloca el lock de un asiento para la sesión dada con TTL (SET NX).
+     * KEYS = [lock, setDeSesion, indice], ARGV = [sessionId, ttlMs, seatId].
+     * Devuelve 1 si tomó el lock, 2 si ya era de la sesión (renueva TTL), 0 si es de otra sesión.
+     */
+    private static final DefaultRedisScript<Long> LOCK_UNO = new DefaultRedisScript<>(
+            LUA_AHORA_MS +
+            "local ttl = tonumber(ARGV[2]) " +
+            "local owner = redis.call('get', KEYS[1]) " +
+            "if owner and owner ~= ARGV[1] then return 0 end " +
+            "redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) " +
+            "redis.call('sadd', KEYS[2], ARGV[3]) " +
+            "redis.call('pexpire', KEYS[2], ttl) " +
+            "redis.call('zadd', KEYS[3], ahora + ttl, ARGV[3]) " +
+            "redis.call('pexpire', KEYS[3], ttl) " +
+            "if owner then return 2 end " +
+            "return 1",
+            Long.class);
+
+    /**
+     * Coloca el lock de un asiento para la sesión dada con TTL; si ya es de la misma sesión lo renueva.
      * @return true si lo pudo bloquear, false si ya estaba bloqueado por otro.
      */
     public boolean lockSeat(String eventId, String sessionId, String seatId) {
-        String key = lockKey(eventId, seatId);
-        Boolean ok = redis.opsForValue().setIfAbsent(key, sessionId, TTL);
-        if (Boolean.TRUE.equals(ok)) {
-            String setKey = sessionSetKey(sessionId, eventId);
-            redis.opsForSet().add(setKey, seatId);
-            redis.expire(setKey, TTL);
-            return true;
+        Long r = redis.execute(LOCK_UNO,
+                List.of(lockKey(eventId, seatId), sessionSetKey(sessionId, eventId), lockIndexKey(eventId)),
+                sessionId, String.valueOf(ttl.toMillis()), seatId);
+        if (r == null || r == 0L) {
+            return false;
         }
-        // Si ya existe, verificamos si es de la misma sesión para renovar (idempotencia)
-        String currentOwner = redis.opsForValue().get(key);
-        if (sessionId.equals(currentOwner)) {
-            redis.expire(key, TTL);
-            String setKey = sessionSetKey(sessionId, eventId);
-            redis.expire(setKey, TTL);
-            return true;
+        if (r == 1L) {
+            deltaPublisher.publicar(eventId, seatId, AsientosDeltaPublisher.BLOQUEADO);
         }
-        return false;
+        return true;
     }
 
-    private static final String UNLOCK_LUA =
+    /** KEYS = [lock, indice], ARGV = [sessionId, seatId]. */
+    private static final DefaultRedisScript<Long> UNLOCK_UNO = new DefaultRedisScript<>(
             "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('zrem', KEYS[2], ARGV[2]) " +
             "  return redis.call('del', KEYS[1]) " +
-            "else return 0 end";
+            "else return 0 end",
+            Long.class);
 
     public boolean unlockSeatIfOwner(String eventId, String sessionId, String seatId) {
-        String key = lockKey(eventId, seatId);
-        org.springframework.data.redis.core.script.DefaultRedisScript<Long> script =
-                new org.springframework.data.redis.core.script.DefaultRedisScript<>(UNLOCK_LUA, Long.class);
-        Long r = redis.execute(script, java.util.List.of(key), sessionId);
+        boolean liberado = unlock(eventId, sessionId, seatId);
+        if (liberado) {
+            deltaPublisher.publicar(eventId, seatId, AsientosDeltaPublisher.LIBRE);
+        }
+        return liberado;
+    }
+
+    private boolean unlock(String eventId, String sessionId, String seatId) {
+        Long r = redis.execute(UNLOCK_UNO, List.of(lockKey(eventId, seatId), lockIndexKey(eventId)), sessionId, seatId);
         return r != null && r > 0;
     }
 
     /**
-     * Coloca/renueva locks para múltiples asientos.
+     * Lock todo-o-nada de varios asientos en un único script.
+     * KEYS = [setDeSesion, indice, lock1..lockN], ARGV = [sessionId, ttlMs, seat1..seatN].
+     * Devuelve {"1"|"0", estado1, owner1, ..., estadoN, ownerN}. Si algún asiento es de otra sesión
+     * no se toma ninguno; si no, se toman/renuevan todos y se refresca el set de la sesión.
+     */
+    private static final DefaultRedisScript<List> LOCK_MULTIPLE = new DefaultRedisScript<>(
+            LUA_AHORA_MS +
+            "local sid = ARGV[1] " +
+            "local ttl = tonumber(ARGV[2]) " +
+            "local res = {'1'} " +
+            "local conflicto = false " +
+            "for i = 3, #KEYS do " +
+            "  local owner = redis.call('get', KEYS[i]) " +
+            "  if not owner then " +
+            "    table.insert(res, 'OK'); table.insert(res, '') " +
+            "  elseif owner == sid then " +
+            "    table.insert(res, 'YA_PROPIO'); table.insert(res, '') " +
+            "  else " +
+            "    table.insert(res, 'CONFLICTO'); table.insert(res, owner); conflicto = true " +
+            "  end " +
+            "end " +
+            "if conflicto then res[1] = '0'; return res end " +
+            "for i = 3, #KEYS do " +
+            "  redis.call('set', KEYS[i], sid, 'PX', ttl) " +
+            "  redis.call('sadd', KEYS[1], ARGV[i]) " +
+            "  redis.call('zadd', KEYS[2], ahora + ttl, ARGV[i]) " +
+            "end " +
+            "redis.call('pexpire', KEYS[1], ttl) " +
+            "redis.call('pexpire', KEYS[2], ttl) " +
+            "return res",
+            List.class);
+
+    /** Libera los asientos que sigan siendo de la sesión y los saca de su set. Devuelve los liberados. */
+    private static final DefaultRedisScript<List> UNLOCK_MULTIPLE = new DefaultRedisScript<>(
+            "local res = {} " +
+            "for i = 3, #KEYS do " +
+            "  if redis.call('get', KEYS[i]) == ARGV[1] then " +
+            "    redis.call('del', KEYS[i]) " +
+            "    redis.call('srem', KEYS[1], ARGV[i - 1]) " +
+            "    redis.call('zrem', KEYS[2], ARGV[i - 1]) " +
+            "    table.insert(res, ARGV[i - 1]) " +
+            "  end " +
+            "end " +
+            "return res",
+            List.class);
+
+    /**
+     * Toma todos los asientos para la sesión o ninguno (un solo round-trip, atómico).
+     * No publica deltas: el llamador confirma con {@link #publishLocked} una vez que la cátedra aceptó.
+     */
+    @SuppressWarnings("unchecked")
+    public ResultadoLockAsientos lockSeatsAtomic(String eventId, String sessionId, List<String> seatIds) {
+        if (seatIds.isEmpty()) {
+            return new ResultadoLockAsientos(true, List.of());
+        }
+        List<String> keys = new ArrayList<>(seatIds.size() + 2);
+        keys.add(sessionSetKey(sessionId, eventId));
+        keys.add(lockIndexKey(eventId));
+        List<String> args = new ArrayList<>(seatIds.size() + 2);
+        args.add(sessionId);
+        args.add(String.valueOf(ttl.toMillis()));
+        for (String seatId : seatIds) {
+            keys.add(lockKey(eventId, seatId));
+            args.add(seatId);
+        }
+
+        List<Object> raw = redis.execute(LOCK_MULTIPLE, keys, args.toArray());
+        if (raw == null || raw.size() != 1 + 2 * seatIds.size()) {
+            throw new IllegalStateException("Respuesta inesperada del script de lock: " + raw);
+        }
+        List<ResultadoLockAsientos.Asiento> asientos = new ArrayList<>(seatIds.size());
+        for (int i = 0; i < seatIds.size(); i++) {
+            var estado = ResultadoLockAsientos.Estado.valueOf(String.valueOf(raw.get(1 + 2 * i)));
+            String owner = String.valueOf(raw.get(2 + 2 * i));
+            asientos.add(new ResultadoLockAsientos.Asiento(seatIds.get(i), estado, owner.isEmpty() ? null : owner));
+        }
+        return new ResultadoLockAsientos("1".equals(String.valueOf(raw.get(0))), asientos);
+    }
+
+    /** Publica como BLOQUEADO asientos ya tomados con {@link #lockSeatsAtomic}. */
+    public void publishLocked(String eventId, List<String> seatIds) {
+        for (String seatId : seatIds) {
+            deltaPublisher.publicar(eventId, seatId, AsientosDeltaPublisher.BLOQUEADO);
+        }
+    }
+
+    /**
+     * Devuelve asientos reservados con {@link #lockSeatsAtomic} que la cátedra no aceptó.
+     * No publica LIBRE: para el resto de los clientes nunca figuraron como bloqueados por esta sesión.
      */
-    public void lockSeats(String eventId, String sessionId, List<String> seatIds) {
-        for (String s : seatIds) {
-            lockSeat(eventId, sessionId, s);
+    @SuppressWarnings("unchecked")
+    public List<String> releaseReservations(String eventId, String sessionId, List<String> seatIds) {
+        if (seatIds.isEmpty()) return List.of();
+        List<String> keys = new ArrayList<>(seatIds.size() + 2);
+        keys.add(sessionSetKey(sessionId, eventId));
+        keys.add(lockIndexKey(eventId));
+        List<String> args = new ArrayList<>(seatIds.size() + 1);
+        args.add(sessionId);
+        for (String seatId : seatIds) {
+            keys.add(lockKey(eventId, seatId));
+            args.add(seatId);
         }
+        List<Object> liberados = redis.execute(UNLOCK_MULTIPLE, keys, args.toArray());
+        return liberados == null ? List.of() : liberados.stream().map(String::valueOf).toList();
+    }
+
+    /**
+     * Coloca/renueva locks para múltiples asientos (todo o nada).
+     * @return true si la sesión quedó con todos los asientos
+     */
+    public boolean lockSeats(String eventId, String sessionId, List<String> seatIds) {
+        ResultadoLockAsientos r = lockSeatsAtomic(eventId, sessionId, seatIds);
+        if (r.adquirido()) {
+            publishLocked(eventId, r.seatIds(ResultadoLockAsientos.Estado.OK));
+        }
+        return r.adquirido();
     }
 
     public void releaseLocks(String eventId, String sessionId) {
+        releaseLocks(eventId, sessionId, AsientosDeltaPublisher.LIBRE);
+    }
+
+    /**
+     * Libera los locks de una sesión cuya venta fue exitosa. Los asientos se publican como VENDIDO
+     * (no LIBRE) para que los clientes del stream no los vean disponibles entre el unlock y la confirmación.
+     */
+    public void releaseLocksAfterSale(String eventId, String sessionId) {
+        releaseLocks(eventId, sessionId, AsientosDeltaPublisher.VENDIDO);
+    }
+
+    private void releaseLocks(String eventId, String sessionId, String estadoPublicado) {
         if (eventId == null || sessionId == null) return;
         String setKey = sessionSetKey(sessionId, eventId);
         Set<String> seatIds = redis.opsForSet().members(setKey);
         if (seatIds != null) {
             for (String s : seatIds) {
-                unlockSeatIfOwner(eventId, sessionId, s);
+                if (unlock(eventId, sessionId, s)) {
+                    deltaPublisher.publicar(eventId, s, estadoPublicado);
+                }
             }
         }
         redis.delete(setKey);
@@ -0,0 +1,80 @@
+package org.example.tf25.proxy.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalescing "single-flight" por clave: mientras una carga está en curso, los llamados con la misma clave
+ * esperan y reciben ese mismo resultado (o excepción) en vez de repetir el trabajo. No cachea: al terminar
+ * la carga, el próximo llamado vuelve a ejecutarla. El resultado se comparte, así que debe ser inmutable.
+ *
+ * <p>Métricas ({@code tf25.proxy.singleflight.llamadas}, tag {@code resultado=ejecutada|compartida}):
+ * la proporción de coalescing es compartida / (ejecutada + compartida).
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+    private final Counter ejecutadas;
+    private final Counter compartidas;
+
+    public SingleFlight(String nombre, MeterRegistry meterRegistry) {
+        if (meterRegistry != null) {
+            this.ejecutadas = contador(meterRegistry, nombre, "ejecutada");
+            this.compartidas = contador(meterRegistry, nombre, "compartida");
+            Gauge.builder("tf25.proxy.singleflight.en.curso", enCurso, Map::size)
+                    .description("Cargas en curso (claves distintas)")
+                    .tag("nombre", nombre)
+                    .register(meterRegistry);
+        } else {
+            this.ejecutadas = null;
+            this.compartidas = null;
+        }
+    }
+
+    private static Counter contador(MeterRegistry mr, String nombre, String resultado) {
+        return Counter.builder("tf25.proxy.singleflight.llamadas")
+                .description("Llamados que ejecutaron la carga o compartieron una en curso")
+                .tag("nombre", nombre)
+                .tag("resultado", resultado)
+                .register(mr);
+    }
+
+    public V ejecutar(K clave, Supplier<V> carga) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> enVuelo = enCurso.putIfAbsent(clave, propia);
+        if (enVuelo != null) {
+            if (compartidas != null) compartidas.increment();
+            return esperar(enVuelo);
+        }
+        if (ejecutadas != null) ejecutadas.increment();
+        try {
+            V valor = carga.get();
+            propia.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error ex) {
+            propia.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            // se retira antes de que otro llamado pueda ver un resultado viejo como "en curso"
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    private static <V> V esperar(CompletableFuture<V> enVuelo) {
+        try {
+            return enVuelo.join();
+        } catch (CompletionException ex) {
+            // misma excepción que vio el llamado que ejecutó la carga
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw ex;
+        }
+    }
+}
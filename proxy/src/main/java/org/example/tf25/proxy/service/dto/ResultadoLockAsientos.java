@@ -0,0 +1,30 @@
+package org.example.tf25.proxy.service.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de {@code LockService.lockSeatsAtomic}: o se tomaron todos los asientos o ninguno.
+ *
+ * @param adquirido true si la sesión quedó con el lock de todos los asientos pedidos
+ * @param asientos  resultado por asiento, en el orden pedido
+ */
+public record ResultadoLockAsientos(
+        boolean adquirido,
+        List<Asiento> asientos
+) {
+    public enum Estado {
+        /** estaba libre y se tomó (o se hubiera tomado si no hubo conflicto en el grupo) */
+        OK,
+        /** ya era de la misma sesión: se renovó el TTL */
+        YA_PROPIO,
+        /** lo tiene otra sesión */
+        CONFLICTO
+    }
+
+    /** @param owner sesión dueña del lock cuando el estado es CONFLICTO */
+    public record Asiento(String seatId, Estado estado, String owner) {}
+
+    public List<String> seatIds(Estado estado) {
+        return asientos.stream().filter(a -> a.estado() == estado).map(Asiento::seatId).toList();
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.tf25.proxy.web;
 
 import org.example.tf25.proxy.dto.AsientoRemotoDto;
+import org.example.tf25.proxy.dto.GrillaAsientos;
 import org.example.tf25.proxy.service.AsientosProxyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,4 +36,35 @@ public class AsientosProxyController {
             return ResponseEntity.ok(List.of());
         }
     }
+
+    /**
+     * Mismo mapa en formato compacto ({@link GrillaAsientos#MEDIA_TYPE}), solo si el cliente lo pide en Accept.
+     * El proxy no conoce las dimensiones de la sala: se pueden pasar por query param; si no, la grilla
+     * llega hasta el asiento ocupado más alejado. Dimensiones negativas o fuera de rango responden 400.
+     */
+    @GetMapping(value = "/asientos/{externalEventoId}", produces = GrillaAsientos.MEDIA_TYPE)
+    public ResponseEntity<?> listarAsientosCompacto(
+            @PathVariable("externalEventoId") String externalEventoId,
+            @RequestParam(value = "filas", required = false) Integer filas,
+            @RequestParam(value = "columnas", required = false) Integer columnas
+    ) {
+        if (!GrillaAsientos.dimensionesValidas(filas != null ? filas : 0, columnas != null ? columnas : 0)) {
+            return ResponseEntity.badRequest()
+                    .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
+                    .body(java.util.Map.of(
+                            "error", "BadRequest",
+                            "mensaje", "filas/columnas fuera de rango: " + filas + "x" + columnas
+                    ));
+        }
+        List<AsientoRemotoDto> asientos;
+        try {
+            asientos = asientosProxyService.obtenerAsientos(externalEventoId);
+        } catch (Exception ex) {
+            log.warn("Proxy: error consultando asientos para evento {}: {}", externalEventoId, ex.toString());
+            asientos = List.of();
+        }
+        return ResponseEntity.ok()
+                .contentType(org.springframework.http.MediaType.parseMediaType(GrillaAsientos.MEDIA_TYPE))
+                .body(GrillaAsientos.desde(asientos, filas, columnas).serializar());
+    }
 }
@@ -1,14 +1,18 @@
 package org.example.tf25.proxy.web;
 
+import org.example.tf25.proxy.service.CatedraResilience;
+import org.example.tf25.proxy.service.CatedraResilience.Operacion;
 import org.example.tf25.proxy.service.dto.EventoRemotoDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
 @RestController
@@ -18,27 +22,31 @@ public class EventoProxyController {
     private static final Logger log = LoggerFactory.getLogger(EventoProxyController.class);
 
     private final RestClient catedraRestClient;
+    private final CatedraResilience resilience;
 
-    public EventoProxyController(@Qualifier("catedraRestClient") RestClient catedraRestClient) {
+    public EventoProxyController(@Qualifier("catedraRestClient") RestClient catedraRestClient,
+                                 CatedraResilience resilience) {
         this.catedraRestClient = catedraRestClient;
+        this.resilience = resilience;
     }
 
     @GetMapping("/eventos-resumidos")
     public ResponseEntity<?> listarEventos() {
         log.info("Proxy: pidiendo eventos resumidos a la cátedra...");
         try {
-            EventoRemotoDto[] eventos = catedraRestClient.get()
+            EventoRemotoDto[] eventos = resilience.ejecutar(Operacion.LISTAR_EVENTOS, () -> catedraRestClient.get()
                     .uri("/api/endpoints/v1/eventos-resumidos")
                     .retrieve()
-                    .body(EventoRemotoDto[].class);
+                    .body(EventoRemotoDto[].class));
 
             if (eventos == null) {
                 return ResponseEntity.ok(new EventoRemotoDto[0]);
             }
             return ResponseEntity.ok(eventos);
         } catch (Exception ex) {
+            // nunca una lista vacía: el backend la tomaría como "la cátedra no tiene eventos" y los daría de baja
             log.warn("Proxy: error consultando eventos en cátedra: {}", ex.toString());
-            return ResponseEntity.ok(new EventoRemotoDto[0]);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
@@ -46,18 +54,23 @@ public class EventoProxyController {
     public ResponseEntity<?> obtenerEvento(@PathVariable("externalId") String externalId) {
         log.info("Proxy: pidiendo evento {} a la cátedra...", externalId);
         try {
-            EventoRemotoDto evento = catedraRestClient.get()
+            EventoRemotoDto evento = resilience.ejecutar(Operacion.OBTENER_EVENTO, () -> catedraRestClient.get()
                     .uri("/api/endpoints/v1/evento/{id}", externalId)
                     .retrieve()
-                    .body(EventoRemotoDto.class);
+                    .body(EventoRemotoDto.class));
 
             if (evento == null) {
                 return ResponseEntity.notFound().build();
             }
             return ResponseEntity.ok(evento);
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.BadRequest ex) {
+            // la cátedra respondió que no lo tiene (o que el id no sirve); un 401/429 no dice nada del evento
+            log.warn("Proxy: cátedra respondió {} para evento {}", ex.getStatusCode(), externalId);
+            return ResponseEntity.notFound().build();
         } catch (Exception ex) {
+            // cátedra caída, 5xx, breaker abierto, bulkhead lleno: un 404 haría que el backend lo dé por inexistente
             log.warn("Proxy: error consultando evento {} en cátedra: {}", externalId, ex.toString());
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 }
@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestClient;
+import org.example.tf25.proxy.service.CatedraResilience;
+import org.example.tf25.proxy.service.CatedraResilience.Operacion;
 import org.example.tf25.proxy.service.LockService;
 
 /**
@@ -16,6 +18,9 @@ import org.example.tf25.proxy.service.LockService;
  * - GET  /api/endpoints/v1/listar-ventas             -> GET   {BASE}/api/endpoints/v1/listar-ventas
  * - GET  /api/endpoints/v1/listar-venta/{id}         -> GET   {BASE}/api/endpoints/v1/listar-venta/{id}
  *
+ * Cada operación pasa por su circuit breaker y bulkhead ({@link CatedraResilience}); si la llamada
+ * se rechaza sin salir a la red se aplica el mismo fallback que ante un error de comunicación.
+ *
  * Política de errores "amable":
  * - En listados, ante error remoto devolvemos 200 con array vacío.
  * - En detalle, ante error remoto devolvemos 404.
@@ -32,16 +37,19 @@ public class VentasCatedraProxyController {
     private final boolean forceSuccess;
     private final org.example.tf25.proxy.service.CatedraAuthService authService;
     private final LockService lockService;
+    private final CatedraResilience resilience;
 
     public VentasCatedraProxyController(@Qualifier("catedraRestClient") RestClient catedraRestClient,
                                         org.springframework.core.env.Environment env,
                                         @org.springframework.beans.factory.annotation.Value("${tf25.proxy.dev.force-success:false}") boolean forceSuccessProp,
-                                        org.example.tf25.proxy.service.CatedraAuthService authService, LockService lockService) {
+                                        org.example.tf25.proxy.service.CatedraAuthService authService, LockService lockService,
+                                        CatedraResilience resilience) {
         this.catedraRestClient = catedraRestClient;
         boolean devProfile = java.util.Arrays.asList(env.getActiveProfiles()).contains("dev");
         this.forceSuccess = forceSuccessProp || devProfile;
         this.authService = authService;
         this.lockService = lockService;
+        this.resilience = resilience;
     }
 
     @PostMapping("/realizar-venta")
@@ -67,7 +75,7 @@ public class VentasCatedraProxyController {
             ok.put("resultado", true);
             ok.put("descripcion", "(dev) venta forzada exitosa");
             if (externalEventoId != null && sessionId != null) {
-                lockService.releaseLocks(externalEventoId, sessionId);
+                lockService.releaseLocksAfterSale(externalEventoId, sessionId);
             }
             return ResponseEntity.ok(ok);
         }
@@ -194,9 +202,12 @@ public class VentasCatedraProxyController {
         log.info("Proxy→Catedra realizar-venta body={}", body);
 
         // helper: construir request con header opcional
+        // generación del token que adjuntó el interceptor: un 401 tardío no invalida un token ya renovado
+        var generacionToken = new java.util.concurrent.atomic.AtomicLong();
         java.util.function.Supplier<org.springframework.web.client.RestClient.RequestHeadersSpec<?>> requestSupplier = () -> {
             var req = catedraRestClient.post()
                     .uri("/api/endpoints/v1/realizar-venta")
+                    .attribute(org.example.tf25.proxy.service.CatedraAuthService.ATRIBUTO_GENERACION, generacionToken)
                     .body(body);
             if (sessionId != null && !sessionId.isBlank()) {
                 req = req.header("X-Session-Id", sessionId);
@@ -205,13 +216,13 @@ public class VentasCatedraProxyController {
         };
 
         try {
-            JsonNode response = requestSupplier.get()
+            JsonNode response = resilience.ejecutar(Operacion.REALIZAR_VENTA, () -> requestSupplier.get()
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
 
             if (response != null && response.has("resultado") && response.get("resultado").asBoolean()) {
                 log.info("Proxy: venta exitosa en cátedra; liberando locks locales para session={}", sidLog);
-                lockService.releaseLocks(externalEventoId, sessionId);
+                lockService.releaseLocksAfterSale(externalEventoId, sessionId);
             }
             return ResponseEntity.ok(response);
 
@@ -219,34 +230,39 @@ public class VentasCatedraProxyController {
             // 401 → refresh + retry 1 vez
             if (ex.getRawStatusCode() == 401) {
                 try {
-                    authService.refreshToken();
-                    JsonNode response = requestSupplier.get()
+                    authService.refreshToken(generacionToken.get());
+                    JsonNode response = resilience.ejecutar(Operacion.REALIZAR_VENTA, () -> requestSupplier.get()
                             .retrieve()
-                            .body(JsonNode.class);
+                            .body(JsonNode.class));
 
                     if (response != null && response.has("resultado") && response.get("resultado").asBoolean()) {
                         log.info("Proxy: venta exitosa en cátedra (retry); liberando locks locales para session={}", sidLog);
-                        lockService.releaseLocks(externalEventoId, sessionId);
+                        lockService.releaseLocksAfterSale(externalEventoId, sessionId);
                     }
                     return ResponseEntity.ok(response);
                 } catch (org.springframework.web.client.RestClientResponseException ex2) {
                     return ResponseEntity.ok(errorAmigableConUpstream(ex2));
                 } catch (org.springframework.web.client.RestClientException ex2) {
-                    return ResponseEntity.ok(errorComunicacion());
+                    return ResponseEntity.ok(errorComunicacion(ex2));
                 }
             }
             return ResponseEntity.ok(errorAmigableConUpstream(ex));
 
+        } catch (CatedraResilience.CatedraNoDisponibleException ex) {
+            log.warn("Proxy: realizar-venta rechazada sin llamar a cátedra: {}", ex.getMessage());
+            return ResponseEntity.ok(errorComunicacion(ex));
         } catch (org.springframework.web.client.RestClientException ex) {
             log.warn("Proxy: error de comunicación con cátedra en realizar-venta", ex);
-            return ResponseEntity.ok(errorComunicacion());
+            return ResponseEntity.ok(errorComunicacion(ex));
         }
     }
 
-    private com.fasterxml.jackson.databind.node.ObjectNode errorComunicacion() {
+    private com.fasterxml.jackson.databind.node.ObjectNode errorComunicacion(Exception ex) {
         var err = com.fasterxml.jackson.databind.node.JsonNodeFactory.instance.objectNode();
         err.put("resultado", false);
-        err.put("descripcion", "Error de comunicación con cátedra");
+        err.put("descripcion", ex instanceof CatedraResilience.CatedraNoDisponibleException
+                ? "Cátedra no disponible temporalmente"
+                : "Error de comunicación con cátedra");
         return err;
     }
 
@@ -266,10 +282,10 @@ public class VentasCatedraProxyController {
     public ResponseEntity<?> listarVentas() {
         log.info("Proxy: listando ventas en cátedra...");
         try {
-            JsonNode response = catedraRestClient.get()
+            JsonNode response = resilience.ejecutar(Operacion.LISTAR_VENTAS, () -> catedraRestClient.get()
                     .uri("/api/endpoints/v1/listar-ventas")
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
             
             if (response == null || (response.isArray() && response.size() == 0)) {
                 // No inyectar mocks: devolver arreglo vacío para reflejar el estado real
@@ -289,10 +305,10 @@ public class VentasCatedraProxyController {
     public ResponseEntity<?> obtenerVenta(@PathVariable("id") String ventaId) {
         log.info("Proxy: obteniendo venta {} en cátedra...", ventaId);
         try {
-            JsonNode response = catedraRestClient.get()
+            JsonNode response = resilience.ejecutar(Operacion.OBTENER_VENTA, () -> catedraRestClient.get()
                     .uri("/api/endpoints/v1/listar-venta/{id}", ventaId)
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
             if (response == null || response.isNull()) {
                 return ResponseEntity.notFound().build();
             }
@@ -0,0 +1,147 @@
+package org.example.tf25.proxy.service;
+
+import org.example.tf25.proxy.service.dto.ResultadoLockAsientos;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** Scripts Lua de {@link LockService} contra un Redis real (embebido). */
+class LockServiceTest {
+
+    private static RedisServer servidor;
+    private static LettuceConnectionFactory conexiones;
+    private static StringRedisTemplate redis;
+
+    private final AsientosDeltaPublisher deltas = mock(AsientosDeltaPublisher.class);
+    private LockService locks;
+
+    @BeforeAll
+    static void levantarRedis() throws IOException {
+        int puerto;
+        try (ServerSocket s = new ServerSocket(0)) {
+            puerto = s.getLocalPort();
+        }
+        servidor = new RedisServer(puerto);
+        servidor.start();
+        conexiones = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", puerto));
+        conexiones.afterPropertiesSet();
+        conexiones.start();
+        redis = new StringRedisTemplate(conexiones);
+    }
+
+    @AfterAll
+    static void bajarRedis() throws IOException {
+        conexiones.destroy();
+        servidor.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.execute((RedisCallback<Void>) c -> {
+            c.serverCommands().flushAll();
+            return null;
+        });
+        locks = new LockService(redis, deltas, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void lockMultipleEsTodoONada() {
+        assertTrue(locks.lockSeat("1", "otra", "r1c2"));
+
+        ResultadoLockAsientos r = locks.lockSeatsAtomic("1", "s1", List.of("r1c1", "r1c2", "r1c3"));
+
+        assertFalse(r.adquirido());
+        assertEquals(List.of("r1c2"), r.seatIds(ResultadoLockAsientos.Estado.CONFLICTO));
+        assertEquals("otra", r.asientos().get(1).owner());
+        // ninguno del grupo quedó tomado
+        assertTrue(locks.whoLocks("1", "r1c1").isEmpty());
+        assertTrue(locks.whoLocks("1", "r1c3").isEmpty());
+        assertEquals(Set.of("r1c2"), locks.lockedSeats("1"));
+        assertFalse(redis.hasKey("session:s1:event:1"));
+    }
+
+    @Test
+    void lockMultipleTomaTodosYRenuevaLosPropios() {
+        assertTrue(locks.lockSeat("1", "s1", "r1c1"));
+
+        ResultadoLockAsientos r = locks.lockSeatsAtomic("1", "s1", List.of("r1c1", "r1c2"));
+
+        assertTrue(r.adquirido());
+        assertEquals(List.of("r1c1"), r.seatIds(ResultadoLockAsientos.Estado.YA_PROPIO));
+        assertEquals(List.of("r1c2"), r.seatIds(ResultadoLockAsientos.Estado.OK));
+        assertEquals(Set.of("r1c1", "r1c2"), locks.lockedSeats("1"));
+        assertEquals(Set.of("r1c1", "r1c2"), redis.opsForSet().members("session:s1:event:1"));
+    }
+
+    @Test
+    void lockUnoSoloPublicaCuandoTomaElAsiento() {
+        assertTrue(locks.lockSeat("1", "s1", "r1c1"));
+        assertTrue(locks.lockSeat("1", "s1", "r1c1"));
+        assertFalse(locks.lockSeat("1", "otra", "r1c1"));
+
+        verify(deltas, times(1)).publicar("1", "r1c1", AsientosDeltaPublisher.BLOQUEADO);
+        assertEquals("s1", locks.whoLocks("1", "r1c1").orElseThrow());
+    }
+
+    @Test
+    void soloElDuenioLibera() {
+        locks.lockSeatsAtomic("1", "s1", List.of("r1c1", "r1c2"));
+
+        assertFalse(locks.unlockSeatIfOwner("1", "otra", "r1c1"));
+        assertEquals(List.of(), locks.releaseReservations("1", "otra", List.of("r1c1", "r1c2")));
+        assertEquals(Set.of("r1c1", "r1c2"), locks.lockedSeats("1"));
+
+        assertTrue(locks.unlockSeatIfOwner("1", "s1", "r1c1"));
+        assertEquals(List.of("r1c2"), locks.releaseReservations("1", "s1", List.of("r1c2")));
+        assertTrue(locks.lockedSeats("1").isEmpty());
+        assertEquals(0L, redis.opsForZSet().zCard("lockidx:1"));
+        assertFalse(redis.opsForSet().isMember("session:s1:event:1", "r1c2"));
+        verify(deltas).publicar("1", "r1c1", AsientosDeltaPublisher.LIBRE);
+        verify(deltas, never()).publicar("1", "r1c2", AsientosDeltaPublisher.LIBRE);
+    }
+
+    @Test
+    void releaseLocksNoTocaAsientosQuePasaronAOtraSesion() {
+        locks.lockSeatsAtomic("1", "s1", List.of("r1c1", "r1c2"));
+        // el lock de r1c2 venció y lo tomó otra sesión; el set de s1 todavía lo nombra
+        redis.delete("lock:1:r1c2");
+        assertTrue(locks.lockSeat("1", "otra", "r1c2"));
+
+        locks.releaseLocks("1", "s1");
+
+        assertEquals(Set.of("r1c2"), locks.lockedSeats("1"));
+        assertEquals("otra", locks.whoLocks("1", "r1c2").orElseThrow());
+        assertFalse(redis.hasKey("session:s1:event:1"));
+    }
+
+    @Test
+    void elIndiceSePodaAlVencerLosLocks() throws InterruptedException {
+        locks = new LockService(redis, deltas, Duration.ofSeconds(2));
+        assertTrue(locks.lockSeat("1", "s1", "r1c1"));
+        Thread.sleep(1200);
+        // renueva el TTL del índice: la entrada de r1c1 sobrevive a su lock
+        assertTrue(locks.lockSeat("1", "s2", "r1c2"));
+        Thread.sleep(1200);
+
+        assertFalse(redis.hasKey("lock:1:r1c1"));
+        assertEquals(2L, redis.opsForZSet().zCard("lockidx:1"));
+
+        assertEquals(Set.of("r1c2"), locks.lockedSeats("1"));
+        assertEquals(1L, redis.opsForZSet().zCard("lockidx:1"));
+    }
+}
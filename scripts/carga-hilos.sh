@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Carga HTTP simple para comparar hilos de plataforma vs. hilos virtuales (ver README, sección 9).
+# Requiere `hey` (https://github.com/rakyll/hey).
+#
+# Uso: scripts/carga-hilos.sh <etiqueta> [url] [duración] [concurrencias...]
+#   etiqueta     nombre de la corrida (p.ej. plataforma / virtuales); los resultados van a carga-<etiqueta>-c<N>.txt
+#   url          endpoint a cargar (default: mapa de asientos del evento $TF25_EVENTO, o 1, vía proxy: sale del
+#                snapshot en Redis y no pasa por el bulkhead de la cátedra; usá un evento que exista)
+#   duración     duración de cada corrida (default: 30s)
+#   concurrencias lista de clientes concurrentes (default: 50 200 800)
+set -euo pipefail
+
+ETIQUETA="${1:?falta etiqueta (plataforma|virtuales)}"
+URL="${2:-http://localhost:8081/api/endpoints/v1/asientos/${TF25_EVENTO:-1}}"
+DURACION="${3:-30s}"
+if [ $# -gt 3 ]; then
+  shift 3
+  CONCURRENCIAS=("$@")
+else
+  CONCURRENCIAS=(50 200 800)
+fi
+
+command -v hey >/dev/null || { echo "hey no está instalado (go install github.com/rakyll/hey@latest)"; exit 1; }
+
+# calentamiento: JIT, pools de conexiones y caches
+hey -z 10s -c 20 "$URL" >/dev/null
+
+for C in "${CONCURRENCIAS[@]}"; do
+  SALIDA="carga-${ETIQUETA}-c${C}.txt"
+  echo "== ${ETIQUETA}: ${C} concurrentes durante ${DURACION} contra ${URL}"
+  hey -z "$DURACION" -c "$C" "$URL" > "$SALIDA"
+  grep -E "Requests/sec|Average|Slowest|99%|95%|\[[0-9]+\]" "$SALIDA" || true
+done